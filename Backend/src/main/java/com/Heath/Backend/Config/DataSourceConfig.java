@@ -12,6 +12,7 @@ import javax.sql.DataSource;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Locale;
+import java.util.Map;
 
 @Configuration
 public class DataSourceConfig {
@@ -32,10 +33,24 @@ public class DataSourceConfig {
         if (resolved.password != null) {
             config.setPassword(resolved.password);
         }
+        streamingProperties(resolved.jdbcUrl).forEach(config::addDataSourceProperty);
 
         return new HikariDataSource(config);
     }
 
+    // Streamed queries (calendar feed, export) set a fetch size, which neither driver honours by
+    // default: Connector/J and H2 both materialise the whole result first. Cursor fetch also lets
+    // the export keep its hot and archive result sets open side by side on one connection.
+    static Map<String, String> streamingProperties(String jdbcUrl) {
+        if (jdbcUrl.startsWith("jdbc:mysql:")) {
+            return Map.of("useCursorFetch", "true");
+        }
+        if (jdbcUrl.startsWith("jdbc:h2:")) {
+            return Map.of("LAZY_QUERY_EXECUTION", "TRUE");
+        }
+        return Map.of();
+    }
+
     private static ResolvedDb resolveDatabase(Environment environment) {
         // Prefer explicit JDBC URL if provided.
         String explicitJdbc = firstNonBlank(
@@ -39,6 +39,11 @@ public class SecurityConfig {
                 .requestMatchers("/health").permitAll()
                 .requestMatchers("/api/v1/users/**").permitAll()
                 .requestMatchers("/api/v1/doctors/**").permitAll()
+                // SSE streams check the JWT themselves (header or ?token=), also on async re-dispatch.
+                .requestMatchers("/api/v1/appointments/doctor/stream", "/api/v1/appointments/user/stream").permitAll()
+                // The calendar feed authenticates its own feed token, and the export checks the
+                // Authorization header itself, both also on the async dispatch that writes the body.
+                .requestMatchers("/api/v1/appointments/doctor/calendar.ics", "/api/v1/appointments/doctor/export").permitAll()
                 .anyRequest().authenticated()
             );
         
@@ -1,9 +1,17 @@
 package com.Heath.Backend.Controllers;
 
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -13,10 +21,18 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.Heath.Backend.Utils.ApiResponse;
 import com.Heath.Backend.Utils.JwtUtil;
+import com.Heath.Backend.service.AppointmentExportService;
 import com.Heath.Backend.service.AppointmentService;
+import com.Heath.Backend.service.CalendarFeedService;
+import com.Heath.Backend.service.DoctorStatsService;
+import com.Heath.Backend.service.IdempotencyService;
+import com.Heath.Backend.service.WaitlistService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -25,12 +41,21 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 public class AppointmentController {
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final AppointmentService appointmentService;
+    private final CalendarFeedService calendarFeedService;
+    private final AppointmentExportService appointmentExportService;
+    private final WaitlistService waitlistService;
+    private final DoctorStatsService doctorStatsService;
+    private final IdempotencyService idempotencyService;
     private final JwtUtil jwtUtil;
 
     @PostMapping("/create")
     public ResponseEntity<ApiResponse<Object>> createAppointment(
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestBody Map<String, String> payload) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
@@ -38,13 +63,16 @@ public class AppointmentController {
         String token = authHeader.substring(7);
         String patientEmail = jwtUtil.extractEmail(token);
         if (patientEmail == null) return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
-        ApiResponse<Object> resp = appointmentService.createAppointment(patientEmail, payload);
+        ApiResponse<Object> resp = idempotencyService.execute(patientEmail, idempotencyKey,
+                IdempotencyService.fingerprint("create", new TreeMap<>(payload).toString()),
+                () -> appointmentService.createAppointment(patientEmail, payload));
         return ResponseEntity.ok(resp);
     }
 
     @PostMapping("/{id}/resend-otp")
     public ResponseEntity<ApiResponse<Object>> resendOtp(
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @PathVariable("id") Long id) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
@@ -52,7 +80,9 @@ public class AppointmentController {
         String token = authHeader.substring(7);
         String email = jwtUtil.extractEmail(token);
         if (email == null) return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
-        return ResponseEntity.ok(appointmentService.resendOtp(email, id));
+        return ResponseEntity.ok(idempotencyService.execute(email, idempotencyKey,
+                IdempotencyService.fingerprint("resend-otp", String.valueOf(id)),
+                () -> appointmentService.resendOtp(email, id)));
     }
 
     @PostMapping("/{id}/resolve")
@@ -86,16 +116,68 @@ public class AppointmentController {
         return ResponseEntity.ok(appointmentService.cancelAppointment(email, id, reason));
     }
 
+    @PostMapping("/waitlist")
+    public ResponseEntity<ApiResponse<Object>> joinWaitlist(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody Map<String, String> payload) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
+        }
+        String token = authHeader.substring(7);
+        String email = jwtUtil.extractEmail(token);
+        if (email == null) return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
+        return ResponseEntity.ok(waitlistService.join(email, payload));
+    }
+
+    @GetMapping("/waitlist")
+    public ResponseEntity<ApiResponse<Object>> myWaitlist(@RequestHeader("Authorization") String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
+        }
+        String token = authHeader.substring(7);
+        String email = jwtUtil.extractEmail(token);
+        if (email == null) return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
+        return ResponseEntity.ok(waitlistService.getPatientEntries(email));
+    }
+
+    @PostMapping("/waitlist/{id}/accept")
+    public ResponseEntity<ApiResponse<Object>> acceptWaitlistOffer(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable("id") Long id) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
+        }
+        String token = authHeader.substring(7);
+        String email = jwtUtil.extractEmail(token);
+        if (email == null) return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
+        return ResponseEntity.ok(waitlistService.accept(email, id));
+    }
+
+    @PatchMapping("/waitlist/{id}/leave")
+    public ResponseEntity<ApiResponse<Object>> leaveWaitlist(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable("id") Long id) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
+        }
+        String token = authHeader.substring(7);
+        String email = jwtUtil.extractEmail(token);
+        if (email == null) return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
+        return ResponseEntity.ok(waitlistService.leave(email, id));
+    }
+
     @GetMapping("/user/upcoming")
     public ResponseEntity<ApiResponse<Object>> patientUpcoming(
             @RequestHeader("Authorization") String authHeader,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
         }
         String token = authHeader.substring(7);
         String email = jwtUtil.extractEmail(token);
+        if (cursor != null) return ResponseEntity.ok(appointmentService.getPatientUpcomingByCursor(email, cursor, size));
         return ResponseEntity.ok(appointmentService.getPatientUpcoming(email, page, size));
     }
 
@@ -103,12 +185,14 @@ public class AppointmentController {
     public ResponseEntity<ApiResponse<Object>> patientHistory(
             @RequestHeader("Authorization") String authHeader,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
         }
         String token = authHeader.substring(7);
         String email = jwtUtil.extractEmail(token);
+        if (cursor != null) return ResponseEntity.ok(appointmentService.getPatientHistoryByCursor(email, cursor, size));
         return ResponseEntity.ok(appointmentService.getPatientHistory(email, page, size));
     }
 
@@ -116,12 +200,14 @@ public class AppointmentController {
     public ResponseEntity<ApiResponse<Object>> doctorUpcoming(
             @RequestHeader("Authorization") String authHeader,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
         }
         String token = authHeader.substring(7);
         String email = jwtUtil.extractEmail(token);
+        if (cursor != null) return ResponseEntity.ok(appointmentService.getDoctorUpcomingByCursor(email, cursor, size));
         return ResponseEntity.ok(appointmentService.getDoctorUpcoming(email, page, size));
     }
 
@@ -129,12 +215,154 @@ public class AppointmentController {
     public ResponseEntity<ApiResponse<Object>> doctorHistory(
             @RequestHeader("Authorization") String authHeader,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
         }
         String token = authHeader.substring(7);
         String email = jwtUtil.extractEmail(token);
+        if (cursor != null) return ResponseEntity.ok(appointmentService.getDoctorHistoryByCursor(email, cursor, size));
         return ResponseEntity.ok(appointmentService.getDoctorHistory(email, page, size));
     }
+
+    @GetMapping("/doctor/stats")
+    public ResponseEntity<ApiResponse<Object>> doctorStats(@RequestHeader("Authorization") String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
+        }
+        String token = authHeader.substring(7);
+        String email = jwtUtil.extractEmail(token);
+        return ResponseEntity.ok(doctorStatsService.getDoctorStats(email));
+    }
+
+    // EventSource cannot set headers, so the streams also accept the JWT as a "token" query parameter.
+    @GetMapping(value = "/doctor/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> doctorStream(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(value = "token", required = false) String token) {
+        String email = streamEmail(authHeader, token);
+        if (email == null) return unauthorizedStream();
+        return stream(appointmentService.subscribeDoctor(email));
+    }
+
+    @GetMapping(value = "/user/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> patientStream(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(value = "token", required = false) String token) {
+        String email = streamEmail(authHeader, token);
+        if (email == null) return unauthorizedStream();
+        return stream(appointmentService.subscribePatient(email));
+    }
+
+    // Calendar apps subscribe by URL, so the feed also accepts its own feed token as "token" (never
+    // the login JWT, which expires and would end up in providers' logs). Unchanged feeds are answered
+    // with 304 from the version query alone, without streaming rows.
+    @GetMapping("/doctor/calendar.ics")
+    public ResponseEntity<StreamingResponseBody> doctorCalendar(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(value = "token", required = false) String token,
+            WebRequest request) {
+        CalendarFeedService.Feed feed;
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String email = jwtUtil.extractEmail(authHeader.substring(7));
+            if (email == null) return ResponseEntity.status(401).build();
+            feed = calendarFeedService.doctorFeed(email);
+            if (feed == null) return ResponseEntity.notFound().build();
+        } else {
+            feed = calendarFeedService.doctorFeedForToken(token);
+            if (feed == null) return ResponseEntity.status(401).build();
+        }
+
+        long lastModified = feed.lastModified() != null
+                ? feed.lastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+        if (request.checkNotModified(feed.etag(), lastModified)) return null;
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"appointments.ics\"")
+                .body(out -> calendarFeedService.writeDoctorCalendar(feed, out));
+    }
+
+    // Issues a new feed token (revoking the previous one) and returns the subscription URL.
+    @PostMapping("/doctor/calendar/token")
+    public ResponseEntity<ApiResponse<Object>> issueCalendarToken(@RequestHeader("Authorization") String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
+        }
+        String email = jwtUtil.extractEmail(authHeader.substring(7));
+        if (email == null) return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
+        String feedToken = calendarFeedService.issueFeedToken(email);
+        if (feedToken == null) return ResponseEntity.status(404).body(ApiResponse.error("Doctor not found"));
+        return ResponseEntity.ok(ApiResponse.success("Calendar feed token issued", Map.of(
+                "token", feedToken,
+                "url", "/api/v1/appointments/doctor/calendar.ics?token=" + feedToken
+        )));
+    }
+
+    @DeleteMapping("/doctor/calendar/token")
+    public ResponseEntity<ApiResponse<Object>> revokeCalendarToken(@RequestHeader("Authorization") String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Missing or invalid token"));
+        }
+        String email = jwtUtil.extractEmail(authHeader.substring(7));
+        if (email == null) return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
+        if (!calendarFeedService.revokeFeedToken(email)) return ResponseEntity.status(404).body(ApiResponse.error("Doctor not found"));
+        return ResponseEntity.ok(ApiResponse.success("Calendar feed token revoked", null));
+    }
+
+    // Compressed on the fly when the client accepts gzip; the body is written row by row either way.
+    // A download can always send a header, so unlike the streams the login JWT is never taken from
+    // the URL, where it would end up in proxy, access and browser-history logs.
+    @GetMapping("/doctor/export")
+    public ResponseEntity<StreamingResponseBody> doctorExport(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestParam(value = "format", defaultValue = "csv") String format) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) return ResponseEntity.status(401).build();
+        String email = jwtUtil.extractEmail(authHeader.substring(7));
+        if (email == null) return ResponseEntity.status(401).build();
+        AppointmentExportService.Format exportFormat;
+        try {
+            exportFormat = AppointmentExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long doctorId = appointmentExportService.doctorIdFor(email);
+        if (doctorId == null) return ResponseEntity.notFound().build();
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == AppointmentExportService.Format.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"appointments." + format.toLowerCase() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(out -> {
+            if (!gzip) {
+                appointmentExportService.writeDoctorExport(doctorId, exportFormat, out);
+                return;
+            }
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+            appointmentExportService.writeDoctorExport(doctorId, exportFormat, compressed);
+            compressed.finish();
+        });
+    }
+
+    private String streamEmail(String authHeader, String token) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) token = authHeader.substring(7);
+        return token != null ? jwtUtil.extractEmail(token) : null;
+    }
+
+    // Typed explicitly: the mappings produce text/event-stream, which an ApiResponse cannot be written as.
+    private static ResponseEntity<?> unauthorizedStream() {
+        return ResponseEntity.status(401).contentType(MediaType.APPLICATION_JSON).body(ApiResponse.error("Missing or invalid token"));
+    }
+
+    private ResponseEntity<?> stream(ApiResponse<Object> subscription) {
+        if (subscription.getData() instanceof SseEmitter emitter) {
+            return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(subscription);
+    }
 }
@@ -1,6 +1,9 @@
 package com.Heath.Backend.Controllers;
 
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Map;
 
 import org.springframework.http.MediaType;
@@ -8,12 +11,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.Heath.Backend.Repository.DoctorRepository;
@@ -21,6 +26,9 @@ import com.Heath.Backend.Utils.ApiResponse;
 import com.Heath.Backend.Utils.JwtUtil;
 import com.Heath.Backend.service.CloudinaryService;
 import com.Heath.Backend.service.DoctorService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +42,7 @@ public class DoctorControllers {
     private final JwtUtil jwtUtil;
     private final DoctorRepository doctorRepository;
     private final CloudinaryService cloudinaryService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping(value = "/register", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ApiResponse<Object>> requestOtpJson(@RequestBody Map<String , String> body){
@@ -89,7 +98,7 @@ public class DoctorControllers {
                 return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
             }
 
-            return doctorRepository.findByEmail(email)
+            return doctorRepository.findWithWorkingDaysByEmail(email)
                 .map(doctor -> {
                     doctor.setPassword(null);
                     doctor.setOtpCode(null);
@@ -104,6 +113,35 @@ public class DoctorControllers {
         }
     }
 
+    @GetMapping("/{id}/slots")
+    public ResponseEntity<ApiResponse<Object>> openSlots(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "duration", defaultValue = "30") int duration,
+            WebRequest request) {
+        ApiResponse<Object> response = doctorService.getOpenSlots(id, from, to, duration);
+        if (!"success".equals(response.getStatus())) return ResponseEntity.ok(response);
+
+        String etag = etag(response);
+        if (etag == null) return ResponseEntity.ok(response);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).body(response);
+    }
+
+    // SHA-256 of the serialized body, with map keys sorted so the same slots hash the same on every
+    // instance; it only changes when the calendar does.
+    private String etag(ApiResponse<Object> response) {
+        try {
+            byte[] body = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).writeValueAsBytes(response);
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body)) + "\"";
+        } catch (JsonProcessingException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     @PatchMapping(value = "/update" , consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ApiResponse<Object>> updateProfile(@RequestHeader("Authorization") String authHeader, @RequestParam Map<String, String> fields, @RequestParam(value = "profileImage", required = false) MultipartFile profileImage){
         try {
@@ -174,4 +174,58 @@ public class UserControllers {
         return ResponseEntity.ok(response);
     }
 
-}
\ No newline at end of file
+    @GetMapping("/search/doctors")
+    public ResponseEntity<ApiResponse<Object>> searchDoctors(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam("q") String query,
+            @RequestParam(value = "city", required = false) String city,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
+        }
+
+        String token = authHeader.substring(7);
+        ApiResponse<Object> response = doctorService.searchDoctors(token, query, city, page, size);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/recommend/nearby")
+    public ResponseEntity<ApiResponse<Object>> recommendNearby(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam("lat") double latitude,
+            @RequestParam("lon") double longitude,
+            @RequestParam(value = "radiusKm", defaultValue = "25") double radiusKm,
+            @RequestParam(value = "specialization", required = false) String specialization,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
+        }
+
+        String token = authHeader.substring(7);
+        ApiResponse<Object> response = doctorService.recommendNearby(token, latitude, longitude, radiusKm, specialization, page, size);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/recommend/available-soon")
+    public ResponseEntity<ApiResponse<Object>> recommendAvailableSoon(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(value = "city", required = false) String city,
+            @RequestParam(value = "specialization", required = false) String specialization,
+            @RequestParam(value = "withinHours", defaultValue = "24") int withinHours,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Invalid token"));
+        }
+
+        String token = authHeader.substring(7);
+        ApiResponse<Object> response = doctorService.recommendAvailableSoon(token, city, specialization, withinHours, page, size);
+        return ResponseEntity.ok(response);
+    }
+
+}
@@ -2,6 +2,9 @@ package com.Heath.Backend.Models;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.*;
@@ -9,25 +12,37 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments",
+       indexes = {
+           @Index(name = "idx_appointments_doctor_status_scheduled", columnList = "doctor_id, status, scheduled_at"),
+           @Index(name = "idx_appointments_patient_status_scheduled", columnList = "patient_id, status, scheduled_at"),
+           // Calendar feed and export read a doctor's rows of every status in time order.
+           @Index(name = "idx_appointments_doctor_scheduled", columnList = "doctor_id, scheduled_at"),
+           @Index(name = "idx_appointments_status_scheduled", columnList = "status, scheduled_at"),
+           @Index(name = "idx_appointments_otp_expiry", columnList = "otp_expiry")
+       })
+@NamedEntityGraph(name = "Appointment.parties", attributeNodes = {
+        @NamedAttributeNode("doctor"),
+        @NamedAttributeNode("patient")
+})
 @Getter
 @Setter
 public class Appointment {
 
     public enum Status {
-        PENDING, CANCELLED, RESOLVED, OTP_LOCKED
+        PENDING, CANCELLED, RESOLVED, OTP_LOCKED, EXPIRED
     }
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id" , referencedColumnName = "id")
     @JsonIgnoreProperties({"appointments"})
     private Doctor doctor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id" , referencedColumnName = "id")
     @JsonIgnoreProperties({"appointments"})
     private User patient;
@@ -39,6 +54,8 @@ public class Appointment {
     private Integer durationMinutes = 30;
 
     @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     private Status status = Status.PENDING;
 
     @Column(columnDefinition = "TEXT")
@@ -46,6 +63,7 @@ public class Appointment {
 
     private String otpHash;
 
+    @Column(name = "otp_expiry")
     private LocalDateTime otpExpiry;
 
     private Integer otpAttempts = 0;
@@ -0,0 +1,67 @@
+package com.Heath.Backend.Models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Cold copy of a terminal appointment (RESOLVED, CANCELLED, OTP_LOCKED, EXPIRED) moved out of
+ * {@code appointments} by {@link com.Heath.Backend.service.AppointmentArchiveService}. Rows keep
+ * their original id; OTP columns are not carried over.
+ */
+@Entity
+@Table(name = "appointments_archive",
+       indexes = {
+           @Index(name = "idx_appointments_archive_doctor_scheduled", columnList = "doctor_id, scheduled_at"),
+           @Index(name = "idx_appointments_archive_patient_scheduled", columnList = "patient_id, scheduled_at")
+       })
+@Getter
+@Setter
+public class AppointmentArchive {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", referencedColumnName = "id")
+    private Doctor doctor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", referencedColumnName = "id")
+    private User patient;
+
+    @Column(name = "scheduled_at", nullable = false)
+    private LocalDateTime scheduledAt;
+
+    @Column(name = "duration_minutes", nullable = false)
+    private Integer durationMinutes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    private Appointment.Status status;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    private String cancelledBy;
+
+    @Column(columnDefinition = "TEXT")
+    private String cancelReason;
+
+    private Long resolvedBy;
+    private LocalDateTime resolvedAt;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -4,9 +4,12 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Set;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import com.Heath.Backend.Utils.SearchKeys;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.CollectionTable;
@@ -19,13 +22,24 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "Doctor")
+@Table(name = "Doctor",
+       indexes = {
+           @Index(name = "idx_doctor_city_key_verified", columnList = "city_key, verified"),
+           @Index(name = "idx_doctor_state_key_verified", columnList = "state_key, verified"),
+           @Index(name = "idx_doctor_city_state_specialization_key_verified", columnList = "city_key, state_key, specialization_key, verified")
+       })
+@NamedEntityGraph(name = "Doctor.workingDays", attributeNodes = @NamedAttributeNode("workingDays"))
 @Getter
 @Setter
 @JsonIgnoreProperties({"appointments"})
@@ -64,6 +78,25 @@ public class Doctor {
 
     private String state;
 
+    // Normalised copies of city, state and specialization (see SearchKeys) so lookups are exact
+    // matches on an index instead of UPPER() scans. Maintained on every insert and update.
+    @JsonIgnore
+    @Column(name = "city_key")
+    private String cityKey;
+
+    @JsonIgnore
+    @Column(name = "state_key")
+    private String stateKey;
+
+    @JsonIgnore
+    @Column(name = "specialization_key")
+    private String specializationKey;
+
+    // Clinic location in WGS84 degrees; geocoded from city and state unless the doctor supplies it.
+    private Double latitude;
+
+    private Double longitude;
+
     private String about;
 
     private String RegNumber;
@@ -74,7 +107,19 @@ public class Doctor {
 
     private LocalTime clinicCloseTime;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    // SHA-256 of the doctor's calendar feed token (see CalendarFeedService); null when no feed is issued.
+    @JsonIgnore
+    @Column(name = "calendar_token_hash", unique = true)
+    private String calendarTokenHash;
+
+    // Bumped by every booking while this row is locked; SlotOccupancyCache only answers from days
+    // it cached at the version it reads here. Null on rows that have never been booked.
+    @JsonIgnore
+    private Long bookingVersion;
+
+    // Lazy by default; single-doctor reads use the "Doctor.workingDays" graph and pages batch-load it.
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @CollectionTable(name = "doctor_working_days", joinColumns = @JoinColumn(name = "doctor_id"))
     @Column(name = "day_of_week")
     private Set<String> workingDays;
@@ -84,4 +129,12 @@ public class Doctor {
 
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void updateSearchKeys() {
+        this.cityKey = SearchKeys.normalize(city);
+        this.stateKey = SearchKeys.normalize(state);
+        this.specializationKey = SearchKeys.normalize(specialization);
+    }
 }
@@ -0,0 +1,41 @@
+package com.Heath.Backend.Models;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Setter;
+
+/** Non-cancelled appointments per doctor and day, from today onwards; feeds the "today" count. */
+@Entity
+@Table(name = "doctor_day_stats",
+       indexes = {@Index(name = "idx_doctor_day_stats_day", columnList = "stat_day")})
+@IdClass(DoctorDayStats.Key.class)
+@Getter
+@Setter
+public class DoctorDayStats {
+
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Id
+    @Column(name = "stat_day")
+    private LocalDate day;
+
+    private long appointments;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long doctorId;
+        private LocalDate day;
+    }
+}
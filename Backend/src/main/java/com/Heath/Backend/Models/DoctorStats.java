@@ -0,0 +1,30 @@
+package com.Heath.Backend.Models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Read model behind the doctor dashboard: appointment counts per status, kept current by
+ * {@link com.Heath.Backend.service.DoctorStatsService} instead of being counted on each request.
+ */
+@Entity
+@Table(name = "doctor_stats")
+@Getter
+@Setter
+public class DoctorStats {
+
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    private long pending;
+    private long resolved;
+    private long cancelled;
+    private long otpLocked;
+    private long expired;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,59 @@
+package com.Heath.Backend.Models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Outcome of a request sent with an {@code Idempotency-Key}, stored so that retries of the same
+ * request are answered from here. A row is IN_PROGRESS while the first attempt runs and
+ * COMPLETED once its response is recorded in the same transaction as the change it made.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+       uniqueConstraints = {@UniqueConstraint(name = "uk_idempotency_owner_key", columnNames = {"owner", "idem_key"})},
+       indexes = {@Index(name = "idx_idempotency_expires_at", columnList = "expires_at")})
+@Getter
+@Setter
+public class IdempotencyRecord {
+
+    public enum Status {
+        IN_PROGRESS, COMPLETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(name = "idem_key", nullable = false, length = 100)
+    private String idemKey;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.IN_PROGRESS;
+
+    private String responseStatus;
+
+    @Column(length = 500)
+    private String responseMessage;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseData;
+
+    // An IN_PROGRESS row whose lease ran out belonged to an attempt that never committed.
+    private LocalDateTime lockedUntil;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,91 @@
+package com.Heath.Backend.Models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A patient waiting for a slot with a doctor on one day. When a booked slot is cancelled the first
+ * eligible WAITING entry is moved to OFFERED with a time-boxed hold on that slot; the patient then
+ * accepts it (BOOKED) or the hold runs out (EXPIRED). Every transition is a conditional update on
+ * the current status, so only one of two racing transitions can win.
+ */
+@Entity
+@Table(name = "waitlist_entries",
+       indexes = {
+           @Index(name = "idx_waitlist_doctor_day_status", columnList = "doctor_id, wait_day, status"),
+           @Index(name = "idx_waitlist_doctor_status_offer", columnList = "doctor_id, status, offer_at"),
+           @Index(name = "idx_waitlist_status_hold", columnList = "status, hold_expires_at"),
+           @Index(name = "idx_waitlist_patient_status", columnList = "patient_id, status")
+       })
+@Getter
+@Setter
+public class WaitlistEntry {
+
+    public enum Status {
+        WAITING, OFFERED, BOOKED, EXPIRED, CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "wait_day", nullable = false)
+    private LocalDate waitDay;
+
+    @Column(name = "duration_minutes", nullable = false)
+    private Integer durationMinutes = 30;
+
+    // Optional window the offered slot has to start in.
+    private LocalTime earliest;
+    private LocalTime latest;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    private Status status = Status.WAITING;
+
+    // The held slot while OFFERED: [offerAt, offerEndsAt) is blocked for everyone else until holdExpiresAt.
+    @Column(name = "offer_at")
+    private LocalDateTime offerAt;
+
+    @Column(name = "offer_ends_at")
+    private LocalDateTime offerEndsAt;
+
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
+    private Long appointmentId;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
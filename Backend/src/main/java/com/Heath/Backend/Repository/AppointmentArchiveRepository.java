@@ -0,0 +1,47 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.Heath.Backend.Models.AppointmentArchive;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface AppointmentArchiveRepository extends JpaRepository<AppointmentArchive, Long> {
+
+    String SUMMARY_SELECT = AppointmentRepository.SUMMARY_COLUMNS +
+            "from AppointmentArchive a left join Doctor d on d.id = a.doctor.id left join User p on p.id = a.patient.id ";
+
+    // Every archived row is a history row, so no status filter: (patient_id|doctor_id, scheduled_at) serves these.
+
+    @Query(SUMMARY_SELECT + "where a.patient.id = :patientId " +
+           "and (a.scheduledAt < :beforeAt or (a.scheduledAt = :beforeAt and a.id < :beforeId)) order by a.scheduledAt desc, a.id desc")
+    List<AppointmentSummary> findPatientHistoryBefore(@Param("patientId") Long patientId, @Param("beforeAt") LocalDateTime beforeAt, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where a.doctor.id = :doctorId " +
+           "and (a.scheduledAt < :beforeAt or (a.scheduledAt = :beforeAt and a.id < :beforeId)) order by a.scheduledAt desc, a.id desc")
+    List<AppointmentSummary> findDoctorHistoryBefore(@Param("doctorId") Long doctorId, @Param("beforeAt") LocalDateTime beforeAt, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    long countByPatient_Id(Long patientId);
+
+    long countByDoctor_Id(Long doctorId);
+
+    @Query("select new com.Heath.Backend.Repository.DoctorStatusCount(a.doctor.id, a.status, count(a)) " +
+           "from AppointmentArchive a where a.doctor is not null group by a.doctor.id, a.status")
+    List<DoctorStatusCount> countByDoctorAndStatus();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(AppointmentRepository.EXPORT_COLUMNS + "from AppointmentArchive a left join User p on p.id = a.patient.id " +
+           "where a.doctor.id = :doctorId order by a.scheduledAt asc, a.id asc")
+    Stream<AppointmentExportRow> streamDoctorExport(@Param("doctorId") Long doctorId);
+}
@@ -0,0 +1,23 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDateTime;
+
+import com.Heath.Backend.Models.Appointment;
+
+/** One line of a doctor's appointment export; built by the streaming export queries on both tables. */
+public record AppointmentExportRow(
+        Long id,
+        LocalDateTime scheduledAt,
+        Integer durationMinutes,
+        Appointment.Status status,
+        Long patientId,
+        String patientName,
+        String patientEmail,
+        String message,
+        String cancelledBy,
+        String cancelReason,
+        LocalDateTime resolvedAt,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+}
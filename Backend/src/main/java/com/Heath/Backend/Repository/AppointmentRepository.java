@@ -1,26 +1,61 @@
 package com.Heath.Backend.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.Heath.Backend.Models.Appointment;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment , Long> {
 
+    // Shared with AppointmentArchiveRepository, whose entity has the same attribute names.
+    String SUMMARY_COLUMNS = "select new com.Heath.Backend.Repository.AppointmentSummary(" +
+            "a.id, a.scheduledAt, a.durationMinutes, a.status, a.message, a.cancelledBy, a.cancelReason, a.resolvedBy, a.resolvedAt, a.createdAt, a.updatedAt, " +
+            "d.id, d.fullname, d.email, d.phoneNumber, d.specialization, d.clinicName, d.clinicAddress, d.city, d.state, d.about, d.RegNumber, " +
+            "d.profileImageUrl, d.clinicOpenTime, d.clinicCloseTime, d.verified, d.role, " +
+            "p.id, p.userName, p.email, p.city, p.state, p.verified, p.role, p.createdAt, p.updatedAt) ";
+
+    String EXPORT_COLUMNS = "select new com.Heath.Backend.Repository.AppointmentExportRow(" +
+            "a.id, a.scheduledAt, a.durationMinutes, a.status, p.id, p.userName, p.email, a.message, a.cancelledBy, a.cancelReason, " +
+            "a.resolvedAt, a.createdAt, a.updatedAt) ";
+
+    String SUMMARY_SELECT = SUMMARY_COLUMNS +
+            "from Appointment a left join Doctor d on d.id = a.doctor.id left join User p on p.id = a.patient.id ";
+
     @Query("select a from Appointment a where a.doctor.id = :doctorId and a.status = 'PENDING' and a.scheduledAt = :scheduledAt")
     List<Appointment> findConflictingForExactStart(@Param("doctorId") Long doctorId , @Param("scheduledAt") LocalDateTime scheduledAt);
 
+    @Query("select new com.Heath.Backend.Repository.BookedInterval(a.id, a.scheduledAt, a.durationMinutes) from Appointment a " +
+           "where a.doctor.id = :doctorId and a.status = 'PENDING' and a.scheduledAt >= :from and a.scheduledAt < :to order by a.scheduledAt asc")
+    List<BookedInterval> findPendingIntervalsBetween(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select max(a.durationMinutes) from Appointment a where a.status = 'PENDING'")
+    Integer findLongestPendingDuration();
+
+    @Query("select new com.Heath.Backend.Repository.DoctorBookedInterval(a.doctor.id, a.id, a.scheduledAt, a.durationMinutes) from Appointment a " +
+           "where a.doctor.id in :doctorIds and a.status = 'PENDING' and a.scheduledAt >= :from and a.scheduledAt < :to " +
+           "order by a.doctor.id asc, a.scheduledAt asc")
+    List<DoctorBookedInterval> findPendingIntervalsForDoctors(@Param("doctorIds") Collection<Long> doctorIds, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
     Page<Appointment> findByPatient_IdAndStatusAndScheduledAtAfterOrderByScheduledAtAsc(Long patientId, Appointment.Status status, LocalDateTime after, Pageable pageable);
 
     Page<Appointment> findByPatient_IdAndStatusInOrderByScheduledAtDesc(Long patientId, java.util.List<Appointment.Status> statuses, Pageable pageable);
@@ -29,7 +64,109 @@ public interface AppointmentRepository extends JpaRepository<Appointment , Long>
 
     Page<Appointment> findByDoctor_IdAndStatusInOrderByScheduledAtDesc(Long doctorId, java.util.List<Appointment.Status> statuses, Pageable pageable);
 
+    // SUMMARY_SELECT joins Doctor/User as entities rather than through the associations, so that
+    // a.patient.id / a.doctor.id below stay on appointments.patient_id / doctor_id and can use the
+    // composite indexes; filtering on the joined row's id makes the planner scan appointments.
+
+    @Query(value = SUMMARY_SELECT + "where a.patient.id = :patientId and a.status = 'PENDING' and a.scheduledAt > :after order by a.scheduledAt asc",
+           countQuery = "select count(a) from Appointment a where a.patient.id = :patientId and a.status = 'PENDING' and a.scheduledAt > :after")
+    Page<AppointmentSummary> findPatientUpcomingSummaries(@Param("patientId") Long patientId, @Param("after") LocalDateTime after, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "where a.doctor.id = :doctorId and a.status = 'PENDING' and a.scheduledAt > :after order by a.scheduledAt asc",
+           countQuery = "select count(a) from Appointment a where a.doctor.id = :doctorId and a.status = 'PENDING' and a.scheduledAt > :after")
+    Page<AppointmentSummary> findDoctorUpcomingSummaries(@Param("doctorId") Long doctorId, @Param("after") LocalDateTime after, Pageable pageable);
+
+    // Keyset variants of the listings above: ordered on (scheduled_at, id), no OFFSET and no COUNT.
+
+    @Query(SUMMARY_SELECT + "where a.patient.id = :patientId and a.status = 'PENDING' " +
+           "and (a.scheduledAt > :afterAt or (a.scheduledAt = :afterAt and a.id > :afterId)) order by a.scheduledAt asc, a.id asc")
+    List<AppointmentSummary> findPatientUpcomingAfter(@Param("patientId") Long patientId, @Param("afterAt") LocalDateTime afterAt, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where a.patient.id = :patientId and a.status in :statuses " +
+           "and (a.scheduledAt < :beforeAt or (a.scheduledAt = :beforeAt and a.id < :beforeId)) order by a.scheduledAt desc, a.id desc")
+    List<AppointmentSummary> findPatientHistoryBefore(@Param("patientId") Long patientId, @Param("statuses") List<Appointment.Status> statuses, @Param("beforeAt") LocalDateTime beforeAt, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where a.doctor.id = :doctorId and a.status = 'PENDING' " +
+           "and (a.scheduledAt > :afterAt or (a.scheduledAt = :afterAt and a.id > :afterId)) order by a.scheduledAt asc, a.id asc")
+    List<AppointmentSummary> findDoctorUpcomingAfter(@Param("doctorId") Long doctorId, @Param("afterAt") LocalDateTime afterAt, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where a.doctor.id = :doctorId and a.status in :statuses " +
+           "and (a.scheduledAt < :beforeAt or (a.scheduledAt = :beforeAt and a.id < :beforeId)) order by a.scheduledAt desc, a.id desc")
+    List<AppointmentSummary> findDoctorHistoryBefore(@Param("doctorId") Long doctorId, @Param("statuses") List<Appointment.Status> statuses, @Param("beforeAt") LocalDateTime beforeAt, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @EntityGraph("Appointment.parties")
+    Optional<Appointment> findWithPartiesById(Long id);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select a from Appointment a where a.id = :id")
     Appointment findByIdForUpdate(@Param("id") Long id);
+
+    // Expiry sweeper: ids are selected in bounded chunks and each chunk is updated in its own transaction.
+
+    // Rows are locked (skipping ones another sweeper holds) so the chunk's events match what the UPDATE changed.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select a from Appointment a where a.status = 'PENDING' and a.scheduledAt < :cutoff order by a.scheduledAt asc")
+    List<Appointment> findStalePendingForUpdate(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("update Appointment a set a.status = 'EXPIRED', a.otpHash = null, a.otpExpiry = null, a.updatedAt = :now " +
+           "where a.id in :ids and a.status = 'PENDING'")
+    int expirePending(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("select a.id from Appointment a where a.otpExpiry < :now and a.otpHash is not null order by a.otpExpiry asc")
+    List<Long> findExpiredOtpIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update Appointment a set a.otpHash = null where a.id in :ids and a.otpExpiry < :now")
+    int clearExpiredOtps(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Archival: candidates are picked by (status, scheduled_at); the copy and delete run in the caller's transaction.
+
+    @Query("select a.id from Appointment a where a.status in :statuses and a.scheduledAt < :cutoff order by a.scheduledAt asc")
+    List<Long> findArchivableIds(@Param("statuses") List<Appointment.Status> statuses, @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("insert into AppointmentArchive (id, doctor, patient, scheduledAt, durationMinutes, status, message, cancelledBy, " +
+           "cancelReason, resolvedBy, resolvedAt, createdAt, updatedAt, archivedAt) " +
+           "select a.id, a.doctor, a.patient, a.scheduledAt, a.durationMinutes, a.status, a.message, a.cancelledBy, " +
+           "a.cancelReason, a.resolvedBy, a.resolvedAt, a.createdAt, a.updatedAt, :now " +
+           "from Appointment a where a.id in :ids and a.status in :statuses")
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("statuses") List<Appointment.Status> statuses, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from Appointment a where a.id in :ids and a.status in :statuses")
+    int deleteArchived(@Param("ids") Collection<Long> ids, @Param("statuses") List<Appointment.Status> statuses);
+
+    long countByPatient_IdAndStatusIn(Long patientId, List<Appointment.Status> statuses);
+
+    long countByDoctor_IdAndStatusIn(Long doctorId, List<Appointment.Status> statuses);
+
+    // Full recounts for the doctor_stats read model; only run when it is rebuilt.
+
+    @Query("select new com.Heath.Backend.Repository.DoctorStatusCount(a.doctor.id, a.status, count(a)) " +
+           "from Appointment a where a.doctor is not null group by a.doctor.id, a.status")
+    List<DoctorStatusCount> countByDoctorAndStatus();
+
+    @Query("select new com.Heath.Backend.Repository.DoctorDayCount(a.doctor.id, cast(a.scheduledAt as LocalDate), count(a)) " +
+           "from Appointment a where a.doctor is not null and a.status <> 'CANCELLED' and a.scheduledAt >= :from " +
+           "group by a.doctor.id, cast(a.scheduledAt as LocalDate)")
+    List<DoctorDayCount> countByDoctorAndDayFrom(@Param("from") LocalDateTime from);
+
+    // Forward-only read for the calendar feed: rows are projections, so nothing accumulates in the
+    // persistence context, and the fetch size keeps the driver from buffering the whole result.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY_SELECT + "where a.doctor.id = :doctorId and a.scheduledAt >= :from order by a.scheduledAt asc, a.id asc")
+    Stream<AppointmentSummary> streamDoctorSchedule(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from);
+
+    @Query("select new com.Heath.Backend.Repository.ScheduleVersion(max(coalesce(a.updatedAt, a.createdAt)), count(a)) " +
+           "from Appointment a where a.doctor.id = :doctorId and a.scheduledAt >= :from")
+    ScheduleVersion findDoctorScheduleVersion(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from);
+
+    // Export reads hot rows in the same (scheduled_at, id) order as the archive query so the two can be merged.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(EXPORT_COLUMNS + "from Appointment a left join User p on p.id = a.patient.id " +
+           "where a.doctor.id = :doctorId order by a.scheduledAt asc, a.id asc")
+    Stream<AppointmentExportRow> streamDoctorExport(@Param("doctorId") Long doctorId);
 }
@@ -0,0 +1,84 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import com.Heath.Backend.Models.Appointment;
+import com.Heath.Backend.Models.Role;
+
+/**
+ * Read-only view of an appointment for the listing endpoints. It carries exactly the columns the
+ * API returns and is built straight from a joined JPQL constructor expression, so listings never
+ * load the Doctor/User entity graphs. The JSON shape matches the sanitized entity it replaces.
+ */
+public record AppointmentSummary(
+        Long id,
+        LocalDateTime scheduledAt,
+        Integer durationMinutes,
+        Appointment.Status status,
+        String message,
+        String cancelledBy,
+        String cancelReason,
+        Long resolvedBy,
+        LocalDateTime resolvedAt,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        DoctorSummary doctor,
+        PatientSummary patient
+) {
+
+    /** Constructor used by the JPQL projections; doctor and patient columns come in flat. */
+    public AppointmentSummary(
+            Long id, LocalDateTime scheduledAt, Integer durationMinutes, Appointment.Status status, String message,
+            String cancelledBy, String cancelReason, Long resolvedBy, LocalDateTime resolvedAt,
+            LocalDateTime createdAt, LocalDateTime updatedAt,
+            Long doctorId, String doctorFullname, String doctorEmail, String doctorPhoneNumber,
+            String doctorSpecialization, String doctorClinicName, String doctorClinicAddress,
+            String doctorCity, String doctorState, String doctorAbout, String doctorRegNumber,
+            String doctorProfileImageUrl, LocalTime doctorClinicOpenTime, LocalTime doctorClinicCloseTime,
+            Boolean doctorVerified, Role doctorRole,
+            Long patientId, String patientUserName, String patientEmail, String patientCity, String patientState,
+            Boolean patientVerified, Role patientRole, LocalDateTime patientCreatedAt, LocalDateTime patientUpdatedAt) {
+        this(id, scheduledAt, durationMinutes, status, message, cancelledBy, cancelReason, resolvedBy, resolvedAt,
+                createdAt, updatedAt,
+                doctorId == null ? null : new DoctorSummary(doctorId, doctorFullname, doctorEmail, doctorPhoneNumber,
+                        doctorSpecialization, doctorClinicName, doctorClinicAddress, doctorCity, doctorState, doctorAbout,
+                        doctorRegNumber, doctorProfileImageUrl, doctorClinicOpenTime, doctorClinicCloseTime,
+                        doctorVerified, doctorRole),
+                patientId == null ? null : new PatientSummary(patientId, patientUserName, patientEmail, patientCity,
+                        patientState, patientVerified, patientRole, patientCreatedAt, patientUpdatedAt));
+    }
+
+    public record DoctorSummary(
+            Long id,
+            String fullname,
+            String email,
+            String phoneNumber,
+            String specialization,
+            String clinicName,
+            String clinicAddress,
+            String city,
+            String state,
+            String about,
+            String regNumber,
+            String profileImageUrl,
+            LocalTime clinicOpenTime,
+            LocalTime clinicCloseTime,
+            Boolean verified,
+            Role role
+    ) {
+    }
+
+    public record PatientSummary(
+            Long id,
+            String userName,
+            String email,
+            String city,
+            String state,
+            Boolean verified,
+            Role role,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt
+    ) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDateTime;
+
+/** Start and length of a PENDING appointment, as loaded by the availability range queries. */
+public record BookedInterval(Long id, LocalDateTime scheduledAt, Integer durationMinutes) {
+
+    public LocalDateTime end() {
+        return scheduledAt.plusMinutes(durationMinutes != null ? durationMinutes : 0);
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return scheduledAt.isBefore(end) && end().isAfter(start);
+    }
+}
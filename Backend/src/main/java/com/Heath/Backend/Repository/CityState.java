@@ -0,0 +1,5 @@
+package com.Heath.Backend.Repository;
+
+/** A distinct (city, state) pair as stored on doctor rows. */
+public record CityState(String city, String state) {
+}
@@ -0,0 +1,11 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDateTime;
+
+/** A PENDING appointment's interval together with its doctor, for range queries over many doctors. */
+public record DoctorBookedInterval(Long doctorId, Long id, LocalDateTime scheduledAt, Integer durationMinutes) {
+
+    public BookedInterval interval() {
+        return new BookedInterval(id, scheduledAt, durationMinutes);
+    }
+}
@@ -1,6 +1,7 @@
 package com.Heath.Backend.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,4 +13,5 @@ import com.Heath.Backend.Models.DoctorCloseddate;
 public interface DoctorCloseDateRepository extends JpaRepository<DoctorCloseddate , Long>{
     boolean existsByDoctorIdAndClosedDate(Long doctorId, LocalDate date);
     List<DoctorCloseddate> findByDoctorIdAndClosedDateBetween(Long doctorId, LocalDate start, LocalDate end);
+    List<DoctorCloseddate> findByDoctorIdInAndClosedDateBetween(Collection<Long> doctorIds, LocalDate start, LocalDate end);
 }
@@ -0,0 +1,7 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDate;
+
+/** Number of non-cancelled appointments a doctor has on one day. */
+public record DoctorDayCount(Long doctorId, LocalDate day, Long count) {
+}
@@ -0,0 +1,31 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.Heath.Backend.Models.DoctorDayStats;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface DoctorDayStatsRepository extends JpaRepository<DoctorDayStats, DoctorDayStats.Key> {
+
+    @Modifying
+    @Query("update DoctorDayStats s set s.appointments = s.appointments + :delta where s.doctorId = :doctorId and s.day = :day")
+    int addDelta(@Param("doctorId") Long doctorId, @Param("day") LocalDate day, @Param("delta") long delta);
+
+    @Modifying
+    @Query("delete from DoctorDayStats s where s.day < :day")
+    int deleteBefore(@Param("day") LocalDate day);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from DoctorDayStats s where s.day >= :day order by s.doctorId, s.day")
+    List<DoctorDayStats> findFromForUpdate(@Param("day") LocalDate day);
+}
@@ -0,0 +1,5 @@
+package com.Heath.Backend.Repository;
+
+/** Location and specialization of a verified doctor, for the in-memory proximity index. */
+public record DoctorGeoPoint(Long id, Double latitude, Double longitude, String specialization) {
+}
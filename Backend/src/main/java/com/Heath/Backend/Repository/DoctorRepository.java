@@ -1,25 +1,91 @@
 package com.Heath.Backend.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.Heath.Backend.Models.Doctor;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor , Long>{
     Optional<Doctor> findByEmail(String email);
+
+    @EntityGraph("Doctor.workingDays")
+    Optional<Doctor> findWithWorkingDaysByEmail(String email);
+
+    @EntityGraph("Doctor.workingDays")
+    Optional<Doctor> findWithWorkingDaysById(Long id);
+
+    // Bookings take this first: it serialises them per doctor across instances until commit, and
+    // the row it returns carries the current bookingVersion.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from Doctor d where d.id = :id")
+    Optional<Doctor> findByIdForUpdate(@Param("id") Long id);
+
     boolean existsByEmail(String email);
+
+    Optional<Doctor> findByCalendarTokenHash(String calendarTokenHash);
     
     List<Doctor> findByRoleAndCityAndSpecialization(String role, String city, String specialization);
 
-    Page<Doctor> findByCityIgnoreCaseAndVerifiedTrue(String city, Pageable pageable);
+    // The *Key arguments must already be normalised with SearchKeys.normalize.
+    Page<Doctor> findByCityKeyAndVerifiedTrue(String cityKey, Pageable pageable);
+
+    Page<Doctor> findByStateKeyAndVerifiedTrue(String stateKey, Pageable pageable);
+
+    Page<Doctor> findByCityKeyAndStateKeyAndSpecializationKeyAndVerifiedTrue(String cityKey, String stateKey, String specializationKey, Pageable pageable);
+
+    @Query("select d from Doctor d where d.id > :afterId and ((d.cityKey is null and d.city is not null) " +
+           "or (d.stateKey is null and d.state is not null) or (d.specializationKey is null and d.specialization is not null)) " +
+           "order by d.id")
+    List<Doctor> findWithMissingSearchKeys(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select new com.Heath.Backend.Repository.DoctorSearchKeys(d.id, d.city, d.state, d.specialization) " +
+           "from Doctor d where d.verified = true")
+    List<DoctorSearchKeys> findVerifiedSearchKeys();
+
+    @Query("select new com.Heath.Backend.Repository.DoctorSearchText(d.id, d.fullname, d.clinicName, d.specialization, d.about, d.city) " +
+           "from Doctor d where d.verified = true")
+    List<DoctorSearchText> findVerifiedSearchText();
+
+    @Query("select new com.Heath.Backend.Repository.DoctorGeoPoint(d.id, d.latitude, d.longitude, d.specialization) " +
+           "from Doctor d where d.verified = true and d.latitude is not null and d.longitude is not null")
+    List<DoctorGeoPoint> findVerifiedGeoPoints();
+
+    // Availability summaries: verified doctors are read in id order, one bounded batch at a time.
+
+    String SCHEDULE_COLUMNS = "select new com.Heath.Backend.Repository.DoctorScheduleRow(d.id, d.clinicOpenTime, d.clinicCloseTime, " +
+            "d.cityKey, d.stateKey, d.specializationKey, d.phoneNumber, d.clinicName, d.clinicAddress, d.about, d.RegNumber, " +
+            "d.profileImageUrl, d.latitude) from Doctor d ";
+
+    @Query(SCHEDULE_COLUMNS + "where d.verified = true and d.id > :afterId order by d.id")
+    List<DoctorScheduleRow> findVerifiedSchedulesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SCHEDULE_COLUMNS + "where d.verified = true and d.id in :ids")
+    List<DoctorScheduleRow> findVerifiedSchedules(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.Heath.Backend.Repository.DoctorWorkingDay(d.id, w) from Doctor d join d.workingDays w where d.id in :ids")
+    List<DoctorWorkingDay> findWorkingDays(@Param("ids") Collection<Long> ids);
 
-    Page<Doctor> findByStateIgnoreCaseAndVerifiedTrue(String state, Pageable pageable);
+    @Query("select distinct new com.Heath.Backend.Repository.CityState(d.city, d.state) from Doctor d " +
+           "where d.latitude is null and d.city is not null")
+    List<CityState> findUnlocatedCities();
 
-    Page<Doctor> findByCityIgnoreCaseAndStateIgnoreCaseAndSpecializationIgnoreCaseAndVerifiedTrue(String city,String state,String specialization,Pageable pageable);
+    @Modifying
+    @Query("update Doctor d set d.latitude = :latitude, d.longitude = :longitude " +
+           "where d.latitude is null and d.city = :city and (d.state = :state or (:state is null and d.state is null))")
+    int locateCity(@Param("city") String city, @Param("state") String state,
+                   @Param("latitude") double latitude, @Param("longitude") double longitude);
 }
@@ -0,0 +1,24 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalTime;
+
+/**
+ * Clinic hours, filter keys and the optional profile fields of a verified doctor, for the
+ * availability summaries behind ranked recommendations.
+ */
+public record DoctorScheduleRow(
+        Long id,
+        LocalTime clinicOpenTime,
+        LocalTime clinicCloseTime,
+        String cityKey,
+        String stateKey,
+        String specializationKey,
+        String phoneNumber,
+        String clinicName,
+        String clinicAddress,
+        String about,
+        String regNumber,
+        String profileImageUrl,
+        Double latitude
+) {
+}
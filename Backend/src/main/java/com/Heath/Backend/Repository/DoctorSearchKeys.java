@@ -0,0 +1,5 @@
+package com.Heath.Backend.Repository;
+
+/** The columns a verified doctor is indexed by for in-memory search. */
+public record DoctorSearchKeys(Long id, String city, String state, String specialization) {
+}
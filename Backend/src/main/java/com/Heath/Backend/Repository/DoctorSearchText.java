@@ -0,0 +1,5 @@
+package com.Heath.Backend.Repository;
+
+/** The free-text fields of a verified doctor, plus the city a text search can be narrowed to. */
+public record DoctorSearchText(Long id, String fullname, String clinicName, String specialization, String about, String city) {
+}
@@ -0,0 +1,34 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.Heath.Backend.Models.DoctorStats;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface DoctorStatsRepository extends JpaRepository<DoctorStats, Long> {
+
+    // Relative update so several instances can flush their deltas into the same row.
+    @Modifying
+    @Query("update DoctorStats s set s.pending = s.pending + :pending, s.resolved = s.resolved + :resolved, " +
+           "s.cancelled = s.cancelled + :cancelled, s.otpLocked = s.otpLocked + :otpLocked, s.expired = s.expired + :expired, " +
+           "s.updatedAt = :now where s.doctorId = :doctorId")
+    int addDeltas(@Param("doctorId") Long doctorId, @Param("pending") long pending, @Param("resolved") long resolved,
+                  @Param("cancelled") long cancelled, @Param("otpLocked") long otpLocked, @Param("expired") long expired,
+                  @Param("now") LocalDateTime now);
+
+    // Taken by a rebuild: flushes and other instances' rebuilds wait on these rows. Ordered by id,
+    // the same order flushes update in, so the two cannot deadlock.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from DoctorStats s order by s.doctorId")
+    List<DoctorStats> findAllForUpdate();
+}
@@ -0,0 +1,7 @@
+package com.Heath.Backend.Repository;
+
+import com.Heath.Backend.Models.Appointment;
+
+/** Number of appointments a doctor has in one status, as grouped by the stats rebuild queries. */
+public record DoctorStatusCount(Long doctorId, Appointment.Status status, Long count) {
+}
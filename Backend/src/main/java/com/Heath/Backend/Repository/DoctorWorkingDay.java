@@ -0,0 +1,5 @@
+package com.Heath.Backend.Repository;
+
+/** One row of {@code doctor_working_days}: a doctor and a {@code DayOfWeek} name they work on. */
+public record DoctorWorkingDay(Long doctorId, String dayOfWeek) {
+}
@@ -0,0 +1,29 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.Heath.Backend.Models.IdempotencyRecord;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    // Locked so two retries racing on an abandoned attempt cannot both take it over.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<IdempotencyRecord> findByOwnerAndIdemKey(String owner, String idemKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,7 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDateTime;
+
+/** Latest change and row count of a schedule window; together they version the calendar feed. */
+public record ScheduleVersion(LocalDateTime lastModified, Long count) {
+}
@@ -0,0 +1,86 @@
+package com.Heath.Backend.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.Heath.Backend.Models.WaitlistEntry;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // Leaving takes this so the status it reads is the one the leave replaces.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from WaitlistEntry w where w.id = :id")
+    Optional<WaitlistEntry> findByIdForUpdate(@Param("id") Long id);
+
+    List<WaitlistEntry> findByPatientIdAndStatusInOrderByWaitDayAsc(Long patientId, Collection<WaitlistEntry.Status> statuses);
+
+    boolean existsByDoctorIdAndPatientIdAndWaitDayAndStatusIn(Long doctorId, Long patientId, LocalDate waitDay, Collection<WaitlistEntry.Status> statuses);
+
+    // Bookings must not land on a slot held for someone else.
+    @Query("select count(w) > 0 from WaitlistEntry w where w.doctorId = :doctorId and w.status = 'OFFERED' " +
+           "and w.offerAt < :end and w.offerEndsAt > :start and w.holdExpiresAt > :now and w.patientId <> :patientId")
+    boolean existsHoldOverlapping(@Param("doctorId") Long doctorId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                  @Param("patientId") Long patientId, @Param("now") LocalDateTime now);
+
+    // The line for one doctor and day, oldest first, limited to requests the slot satisfies.
+    @Query("select w from WaitlistEntry w where w.doctorId = :doctorId and w.waitDay = :day and w.status = 'WAITING' " +
+           "and w.durationMinutes <= :minutes and (w.earliest is null or w.earliest <= :startTime) " +
+           "and (w.latest is null or w.latest >= :startTime) order by w.createdAt asc, w.id asc")
+    List<WaitlistEntry> findWaitingFor(@Param("doctorId") Long doctorId, @Param("day") LocalDate day, @Param("minutes") int minutes,
+                                       @Param("startTime") LocalTime startTime, Pageable pageable);
+
+    // Transitions: each one only applies from the expected state, so the caller that gets 1 back owns it.
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update WaitlistEntry w set w.status = 'OFFERED', w.offerAt = :start, w.offerEndsAt = :end, w.holdExpiresAt = :holdUntil, w.updatedAt = :now " +
+           "where w.id = :id and w.status = 'WAITING'")
+    int offer(@Param("id") Long id, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+              @Param("holdUntil") LocalDateTime holdUntil, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update WaitlistEntry w set w.status = 'BOOKED', w.updatedAt = :now " +
+           "where w.id = :id and w.patientId = :patientId and w.status = 'OFFERED' and w.holdExpiresAt > :now")
+    int accept(@Param("id") Long id, @Param("patientId") Long patientId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update WaitlistEntry w set w.status = 'WAITING', w.offerAt = null, w.offerEndsAt = null, w.holdExpiresAt = null, w.updatedAt = :now " +
+           "where w.id = :id and w.status = 'OFFERED'")
+    int release(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update WaitlistEntry w set w.status = 'CANCELLED', w.updatedAt = :now " +
+           "where w.id = :id and w.patientId = :patientId and w.status in ('WAITING', 'OFFERED')")
+    int leave(@Param("id") Long id, @Param("patientId") Long patientId, @Param("now") LocalDateTime now);
+
+    @Query("select w from WaitlistEntry w where w.status = 'OFFERED' and w.holdExpiresAt <= :now order by w.holdExpiresAt asc")
+    List<WaitlistEntry> findLapsedHolds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update WaitlistEntry w set w.status = 'EXPIRED', w.updatedAt = :now where w.id = :id and w.status = 'OFFERED' and w.holdExpiresAt <= :now")
+    int expireHold(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update WaitlistEntry w set w.status = 'EXPIRED', w.updatedAt = :now where w.status = 'WAITING' and w.waitDay < :today")
+    int expireWaitingBefore(@Param("today") LocalDate today, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,105 @@
+package com.Heath.Backend.Utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Small synchronized LRU map with a hard entry limit and an optional time-to-live. Used for
+ * in-process caches that must never grow with traffic. Expired entries are dropped when they
+ * are read; until then they count towards the limit like any other entry.
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long evictions;
+
+    public BoundedCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    public BoundedCache(int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        if (ttl != null && (ttl.isNegative() || ttl.isZero())) throw new IllegalArgumentException("ttl must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl != null ? ttl.toNanos() : 0;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() <= BoundedCache.this.maxEntries) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.isExpired()) {
+            entries.remove(key);
+            evictions++;
+            return null;
+        }
+        return entry.value();
+    }
+
+    public synchronized V putIfAbsent(K key, V value) {
+        V existing = get(key);
+        if (existing != null) return existing;
+        entries.put(key, wrap(value));
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, wrap(value));
+    }
+
+    /** Stores the value only if {@code condition} holds, checked under the same lock as the write. */
+    public synchronized boolean putIf(K key, V value, BooleanSupplier condition) {
+        if (!condition.getAsBoolean()) return false;
+        entries.put(key, wrap(value));
+        return true;
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry != null && !entry.isExpired() ? entry.value() : null;
+    }
+
+    public synchronized void removeIf(Predicate<K> keyFilter) {
+        entries.keySet().removeIf(keyFilter);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Entries dropped for the size limit or found expired so far; explicit removals do not count. */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    private Entry<V> wrap(V value) {
+        return new Entry<>(value, ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0);
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+
+        boolean isExpired() {
+            return expiresAtNanos != 0 && System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
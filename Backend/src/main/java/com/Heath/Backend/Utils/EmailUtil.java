@@ -1,5 +1,11 @@
 package com.Heath.Backend.Utils;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Component;
@@ -21,11 +27,27 @@ public class EmailUtil {
         
     }
 
-    public void sendSimpleEmail(String to, String subject, String body) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(body);
-        mailSender.send(message);
+    /**
+     * Sends all messages over a single SMTP connection. Returns the messages that could not be
+     * delivered together with their error; an empty map means everything was accepted.
+     */
+    public Map<SimpleMailMessage, Exception> sendBatch(List<SimpleMailMessage> messages) {
+        Map<SimpleMailMessage, Exception> failures = new IdentityHashMap<>();
+        if (messages.isEmpty()) return failures;
+
+        try {
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.forEach(m -> failures.put(m, e));
+            } else {
+                e.getFailedMessages().forEach((msg, ex) -> {
+                    if (msg instanceof SimpleMailMessage simple) failures.put(simple, ex);
+                });
+            }
+        } catch (MailException e) {
+            messages.forEach(m -> failures.put(m, e));
+        }
+        return failures;
     }
-}
\ No newline at end of file
+}
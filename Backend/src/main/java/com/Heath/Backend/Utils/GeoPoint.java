@@ -0,0 +1,26 @@
+package com.Heath.Backend.Utils;
+
+/** A WGS84 position in decimal degrees. */
+public record GeoPoint(double latitude, double longitude) {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    public GeoPoint {
+        if (!(latitude >= -90 && latitude <= 90)) throw new IllegalArgumentException("latitude must be between -90 and 90");
+        if (!(longitude >= -180 && longitude <= 180)) throw new IllegalArgumentException("longitude must be between -180 and 180");
+    }
+
+    /** Null unless both coordinates are present. */
+    public static GeoPoint of(Double latitude, Double longitude) {
+        return latitude != null && longitude != null ? new GeoPoint(latitude, longitude) : null;
+    }
+
+    /** Great-circle (haversine) distance in kilometres. */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+}
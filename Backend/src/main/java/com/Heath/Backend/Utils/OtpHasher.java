@@ -0,0 +1,97 @@
+package com.Heath.Backend.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashes short-lived appointment OTPs with HMAC-SHA256 under a server-side key and a random
+ * per-appointment salt. An OTP lives for minutes and allows a handful of attempts, so a keyed MAC
+ * gives the protection needed at microsecond cost instead of a BCrypt round per call.
+ *
+ * <p>The key comes from its own {@code OTP_SECRET}, never the JWT signing secret, so leaking one
+ * does not expose the other; startup fails if it is missing, short or reused.
+ *
+ * <p>Stored format: {@code hmac$<salt b64>$<mac b64>}. Hashes written before the switch are
+ * BCrypt strings and are still verified through the {@link PasswordEncoder}.
+ */
+@Component
+public class OtpHasher {
+
+    private static final String PREFIX = "hmac$";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+    private final PasswordEncoder legacyEncoder;
+    private final ThreadLocal<Mac> macs;
+
+    public OtpHasher(
+            @Value("${appointments.otp.secret}") String secret,
+            @Value("${jwt.secret}") String jwtSecret,
+            PasswordEncoder legacyEncoder
+    ) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("appointments.otp.secret (OTP_SECRET) must be set");
+        }
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("appointments.otp.secret (OTP_SECRET) must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        if (secret.equals(jwtSecret)) {
+            throw new IllegalStateException("appointments.otp.secret (OTP_SECRET) must differ from jwt.secret");
+        }
+        this.legacyEncoder = legacyEncoder;
+        SecretKeySpec key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+    }
+
+    public String hash(String otp) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return PREFIX + ENCODER.encodeToString(salt) + "$" + ENCODER.encodeToString(mac(salt, otp));
+    }
+
+    /** Constant-time check of {@code otp} against a value produced by {@link #hash(String)}. */
+    public boolean matches(String otp, String stored) {
+        if (otp == null || stored == null) return false;
+        if (!stored.startsWith(PREFIX)) return legacyEncoder.matches(otp, stored);
+
+        int sep = stored.indexOf('$', PREFIX.length());
+        if (sep < 0) return false;
+        try {
+            byte[] salt = DECODER.decode(stored.substring(PREFIX.length(), sep));
+            byte[] expected = DECODER.decode(stored.substring(sep + 1));
+            return MessageDigest.isEqual(expected, mac(salt, otp));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private byte[] mac(byte[] salt, String otp) {
+        Mac mac = macs.get();
+        mac.update(salt);
+        return mac.doFinal(otp.getBytes(StandardCharsets.UTF_8));
+    }
+}
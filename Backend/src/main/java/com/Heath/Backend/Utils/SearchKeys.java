@@ -0,0 +1,27 @@
+package com.Heath.Backend.Utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical form for free-text lookup keys such as city, state and specialization: accents are
+ * stripped, case is folded and runs of whitespace collapse to one space, so "  Navi   Mumbai",
+ * "navi mumbai" and "Navi Mumbaí" all land on the same key.
+ */
+public final class SearchKeys {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private SearchKeys() {
+    }
+
+    /** Null for null or blank input. */
+    public static String normalize(String value) {
+        if (value == null) return null;
+        String key = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        key = SPACES.matcher(key.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+}
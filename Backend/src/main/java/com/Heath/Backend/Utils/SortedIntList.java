@@ -0,0 +1,81 @@
+package com.Heath.Backend.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable, duplicate-free, ascending list of primitive ints; the posting list behind the in-memory
+ * search indexes. Membership and updates are a binary search plus an array copy, which is cheap at
+ * the sizes a posting list reaches here and keeps each entry at four bytes. Not thread-safe.
+ */
+public final class SortedIntList {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values = EMPTY;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return values[index];
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /** Returns false when the value was already present. */
+    public boolean add(int value) {
+        int at = Arrays.binarySearch(values, 0, size, value);
+        if (at >= 0) return false;
+        at = -at - 1;
+        if (size == values.length) values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        System.arraycopy(values, at, values, at + 1, size - at);
+        values[at] = value;
+        size++;
+        return true;
+    }
+
+    /** Returns false when the value was not present. */
+    public boolean remove(int value) {
+        int at = Arrays.binarySearch(values, 0, size, value);
+        if (at < 0) return false;
+        System.arraycopy(values, at + 1, values, at, size - at - 1);
+        size--;
+        if (size == 0) values = EMPTY;
+        return true;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Ascending values present in every list. Walks the shortest list and probes the others, so the
+     * cost follows the most selective term rather than the most common one.
+     */
+    public static int[] intersect(SortedIntList... lists) {
+        if (lists.length == 0) return EMPTY;
+        SortedIntList[] ordered = lists.clone();
+        Arrays.sort(ordered, (a, b) -> Integer.compare(a.size, b.size));
+        SortedIntList smallest = ordered[0];
+        int[] out = new int[smallest.size];
+        int count = 0;
+        outer:
+        for (int i = 0; i < smallest.size; i++) {
+            int value = smallest.values[i];
+            for (int l = 1; l < ordered.length; l++) {
+                if (!ordered[l].contains(value)) continue outer;
+            }
+            out[count++] = value;
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+}
@@ -0,0 +1,37 @@
+package com.Heath.Backend.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.Heath.Backend.Models.Appointment.Status;
+import com.Heath.Backend.Repository.AppointmentRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Moves terminal appointments into {@code appointments_archive}. Each batch copies and deletes
+ * its rows in one transaction, so a crash leaves every row in exactly one of the two tables and
+ * the next run simply picks up what is still in the hot table.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentArchiveService {
+
+    static final List<Status> ARCHIVABLE_STATUSES = List.of(Status.RESOLVED, Status.CANCELLED, Status.OTP_LOCKED, Status.EXPIRED);
+
+    private final AppointmentRepository appointmentRepository;
+
+    /** Archives up to {@code limit} terminal appointments scheduled before {@code cutoff}; returns how many moved. */
+    @Transactional
+    public int archiveBatch(LocalDateTime cutoff, int limit) {
+        List<Long> ids = appointmentRepository.findArchivableIds(ARCHIVABLE_STATUSES, cutoff, PageRequest.of(0, limit));
+        if (ids.isEmpty()) return 0;
+
+        appointmentRepository.copyToArchive(ids, ARCHIVABLE_STATUSES, LocalDateTime.now());
+        return appointmentRepository.deleteArchived(ids, ARCHIVABLE_STATUSES);
+    }
+}
@@ -0,0 +1,61 @@
+package com.Heath.Backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Periodically drains terminal appointments older than {@code appointments.archive.after} into the
+ * archive table, one bounded batch (and transaction) at a time, keeping {@code appointments}
+ * sized to the live working set.
+ */
+@Component
+public class AppointmentArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentArchiver.class);
+
+    private final AppointmentArchiveService appointmentArchiveService;
+    private final Duration archiveAfter;
+    private final int batchSize;
+    private final Counter archived;
+    private final Timer runTimer;
+
+    public AppointmentArchiver(
+            AppointmentArchiveService appointmentArchiveService,
+            MeterRegistry meterRegistry,
+            @Value("${appointments.archive.after:P90D}") Duration archiveAfter,
+            @Value("${appointments.archive.batch-size:500}") int batchSize
+    ) {
+        this.appointmentArchiveService = appointmentArchiveService;
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+        this.archived = meterRegistry.counter("appointments.archive.moved");
+        this.runTimer = meterRegistry.timer("appointments.archive.duration");
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.archive.interval:PT1H}",
+               initialDelayString = "${appointments.archive.initial-delay:PT5M}")
+    public void archive() {
+        runTimer.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+            int total = 0;
+            int moved;
+            do {
+                moved = appointmentArchiveService.archiveBatch(cutoff, batchSize);
+                total += moved;
+                archived.increment(moved);
+            } while (moved == batchSize);
+
+            if (total > 0) log.info("Appointment archive: moved {} rows older than {}", total, cutoff);
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.Heath.Backend.service;
+
+import java.time.LocalDateTime;
+
+import com.Heath.Backend.Models.Appointment;
+import com.Heath.Backend.Models.Appointment.Status;
+
+/**
+ * Published by {@link AppointmentService} whenever an appointment is created or changes status.
+ * Listeners that keep derived state should consume it after commit.
+ */
+public record AppointmentChangedEvent(
+        Long appointmentId,
+        Long doctorId,
+        Long patientId,
+        LocalDateTime scheduledAt,
+        Integer durationMinutes,
+        Status previousStatus,
+        Status status
+) {
+
+    public static AppointmentChangedEvent of(Appointment appointment, Status previousStatus) {
+        return new AppointmentChangedEvent(
+                appointment.getId(),
+                appointment.getDoctor() != null ? appointment.getDoctor().getId() : null,
+                appointment.getPatient() != null ? appointment.getPatient().getId() : null,
+                appointment.getScheduledAt(),
+                appointment.getDurationMinutes(),
+                previousStatus,
+                appointment.getStatus()
+        );
+    }
+
+    public boolean isCreated() {
+        return previousStatus == null;
+    }
+
+    /** True when a PENDING appointment stopped holding its slot. */
+    public boolean releasedSlot() {
+        return previousStatus == Status.PENDING && status != Status.PENDING;
+    }
+}
@@ -0,0 +1,182 @@
+package com.Heath.Backend.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process fan-out of committed appointment changes to Server-Sent Events subscribers. Each
+ * subscriber owns a small bounded buffer drained by its own virtual thread, so thousands of idle
+ * connections cost a parked virtual thread each and a slow client can never hold up the
+ * publisher: when its buffer overflows the backlog is dropped and the client is told to resync.
+ */
+@Component
+public class AppointmentEventHub {
+
+    public enum Audience { DOCTOR, PATIENT }
+
+    private static final Object RESYNC = new Object();
+
+    private final Map<Long, Set<Subscriber>> doctors = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> patients = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long heartbeatMillis;
+
+    public AppointmentEventHub(
+            @Value("${appointments.events.buffer-size:32}") int bufferSize,
+            @Value("${appointments.events.max-subscribers:10000}") int maxSubscribers,
+            @Value("${appointments.events.timeout:PT30M}") Duration timeout,
+            @Value("${appointments.events.heartbeat:PT25S}") Duration heartbeat
+    ) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.heartbeatMillis = heartbeat.toMillis();
+    }
+
+    /** Opens a stream of changes to the given doctor's or patient's appointments; null when the hub is full. */
+    public SseEmitter subscribe(Audience audience, Long id) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Map<Long, Set<Subscriber>> registry = audience == Audience.DOCTOR ? doctors : patients;
+        Subscriber subscriber = new Subscriber(emitter, registry, id);
+        registry.compute(id, (k, set) -> {
+            Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(subscriber);
+            return target;
+        });
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscriber.thread = Thread.ofVirtual().name("sse-" + audience.name().toLowerCase() + "-" + id).start(subscriber);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        // Expiry publishes events for rows without a doctor or patient, and ConcurrentHashMap
+        // rejects null keys.
+        if (event.doctorId() != null) deliver(doctors.get(event.doctorId()), event);
+        if (event.patientId() != null) deliver(patients.get(event.patientId()), event);
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    private void deliver(Set<Subscriber> targets, AppointmentChangedEvent event) {
+        if (targets == null) return;
+        for (Subscriber subscriber : targets) subscriber.offer(event);
+    }
+
+    private Map<String, Object> payload(AppointmentChangedEvent event) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", event.isCreated() ? "CREATED" : event.status().name());
+        data.put("appointmentId", event.appointmentId());
+        data.put("doctorId", event.doctorId());
+        data.put("patientId", event.patientId());
+        data.put("scheduledAt", event.scheduledAt());
+        data.put("durationMinutes", event.durationMinutes());
+        data.put("previousStatus", event.previousStatus());
+        data.put("status", event.status());
+        return data;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        doctors.values().forEach(set -> set.forEach(Subscriber::close));
+        patients.values().forEach(set -> set.forEach(Subscriber::close));
+    }
+
+    private final class Subscriber implements Runnable {
+        private final SseEmitter emitter;
+        private final Map<Long, Set<Subscriber>> registry;
+        private final Long key;
+        private final ArrayBlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private volatile boolean closed;
+        private volatile Thread thread;
+
+        Subscriber(SseEmitter emitter, Map<Long, Set<Subscriber>> registry, Long key) {
+            this.emitter = emitter;
+            this.registry = registry;
+            this.key = key;
+        }
+
+        synchronized void offer(AppointmentChangedEvent event) {
+            if (closed || buffer.offer(event)) return;
+            buffer.clear();
+            buffer.offer(RESYNC);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    Object next = buffer.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } else if (next == RESYNC) {
+                        emitter.send(SseEmitter.event().id(String.valueOf(sequence.incrementAndGet())).name("resync").data(Map.of()));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(sequence.incrementAndGet()))
+                                .name("appointment")
+                                .data(payload((AppointmentChangedEvent) next), MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed.
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed) return;
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+            }
+            registry.computeIfPresent(key, (k, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            subscribers.decrementAndGet();
+            Thread t = thread;
+            if (t != null && t != Thread.currentThread()) t.interrupt();
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // Already completed by the container.
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.Heath.Backend.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.Heath.Backend.Models.Appointment;
+import com.Heath.Backend.Models.Appointment.Status;
+import com.Heath.Backend.Repository.AppointmentRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * One chunk of the expiry sweep: locks stale PENDING rows, bulk-updates them to EXPIRED and
+ * publishes an {@link AppointmentChangedEvent} per row, delivered to listeners after commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentExpiryService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** Expires up to {@code limit} PENDING appointments scheduled before {@code cutoff}; returns how many changed. */
+    @Transactional
+    public int expireBatch(LocalDateTime cutoff, LocalDateTime now, int limit) {
+        List<Appointment> stale = appointmentRepository.findStalePendingForUpdate(cutoff, PageRequest.of(0, limit));
+        if (stale.isEmpty()) return 0;
+
+        int updated = appointmentRepository.expirePending(stale.stream().map(Appointment::getId).toList(), now);
+        for (Appointment appointment : stale) {
+            eventPublisher.publishEvent(new AppointmentChangedEvent(
+                    appointment.getId(),
+                    appointment.getDoctor() != null ? appointment.getDoctor().getId() : null,
+                    appointment.getPatient() != null ? appointment.getPatient().getId() : null,
+                    appointment.getScheduledAt(),
+                    appointment.getDurationMinutes(),
+                    Status.PENDING,
+                    Status.EXPIRED));
+        }
+        return updated;
+    }
+}
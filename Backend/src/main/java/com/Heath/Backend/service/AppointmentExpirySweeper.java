@@ -0,0 +1,96 @@
+package com.Heath.Backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.Heath.Backend.Repository.AppointmentRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Moves PENDING appointments whose time has passed (plus a grace period for late resolves) to
+ * EXPIRED, and clears OTP hashes that can no longer be used. Both passes work in bounded chunks,
+ * each bulk-updated in its own short transaction, so the hot PENDING indexes only ever hold live
+ * rows and no sweep holds locks for long. Expiries are published as appointment events.
+ */
+@Component
+public class AppointmentExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentExpirySweeper.class);
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentExpiryService appointmentExpiryService;
+    private final int batchSize;
+    private final Duration grace;
+    private final Counter expired;
+    private final Counter otpsCleared;
+    private final Timer sweepTimer;
+
+    public AppointmentExpirySweeper(
+            AppointmentRepository appointmentRepository,
+            AppointmentExpiryService appointmentExpiryService,
+            MeterRegistry meterRegistry,
+            @Value("${appointments.sweeper.batch-size:500}") int batchSize,
+            @Value("${appointments.sweeper.grace:PT12H}") Duration grace
+    ) {
+        this.appointmentRepository = appointmentRepository;
+        this.appointmentExpiryService = appointmentExpiryService;
+        this.batchSize = batchSize;
+        this.grace = grace;
+        this.expired = meterRegistry.counter("appointments.sweeper.expired");
+        this.otpsCleared = meterRegistry.counter("appointments.sweeper.otps.cleared");
+        this.sweepTimer = meterRegistry.timer("appointments.sweeper.duration");
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.sweeper.interval:PT5M}",
+               initialDelayString = "${appointments.sweeper.initial-delay:PT1M}")
+    public void sweep() {
+        sweepTimer.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            int expiredRows = 0;
+            int expiredInChunk;
+            do {
+                expiredInChunk = appointmentExpiryService.expireBatch(now.minus(grace), now, batchSize);
+                expiredRows += expiredInChunk;
+            } while (expiredInChunk == batchSize);
+
+            int clearedRows = inChunks(
+                    page -> appointmentRepository.findExpiredOtpIds(now, page),
+                    ids -> appointmentRepository.clearExpiredOtps(ids, now));
+
+            expired.increment(expiredRows);
+            otpsCleared.increment(clearedRows);
+            if (expiredRows > 0 || clearedRows > 0) {
+                log.info("Appointment sweep: {} expired, {} OTPs cleared", expiredRows, clearedRows);
+            }
+        });
+    }
+
+    // Updated rows drop out of the selection, so every round reads the first page again.
+    private int inChunks(Function<Pageable, List<Long>> select, ToIntFunction<List<Long>> update) {
+        Pageable firstPage = PageRequest.of(0, batchSize);
+        int total = 0;
+        List<Long> ids;
+        do {
+            ids = select.apply(firstPage);
+            if (ids.isEmpty()) break;
+            int updated = update.applyAsInt(ids);
+            total += updated;
+            if (updated == 0) break;
+        } while (ids.size() == batchSize);
+        return total;
+    }
+}
@@ -0,0 +1,121 @@
+package com.Heath.Backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.Heath.Backend.Repository.AppointmentArchiveRepository;
+import com.Heath.Backend.Repository.AppointmentExportRow;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Full export of a doctor's appointments, hot and archived, as CSV or NDJSON. Both tables are
+ * read through forward-only streams in (scheduledAt, id) order and merged row by row, and every
+ * row is written as soon as it is read, so heap use does not depend on how many rows there are.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final Comparator<AppointmentExportRow> ORDER =
+            Comparator.comparing(AppointmentExportRow::scheduledAt).thenComparing(AppointmentExportRow::id);
+
+    private static final String CSV_HEADER = "id,scheduledAt,durationMinutes,status,patientId,patientName,patientEmail," +
+            "message,cancelledBy,cancelReason,resolvedAt,createdAt,updatedAt";
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentArchiveRepository appointmentArchiveRepository;
+    private final DoctorRepository doctorRepository;
+    private final ObjectMapper objectMapper;
+
+    /** Null when the doctor does not exist. */
+    public Long doctorIdFor(String doctorEmail) {
+        return doctorRepository.findByEmail(doctorEmail).map(doctor -> doctor.getId()).orElse(null);
+    }
+
+    // One read-only transaction, so both queries see the same snapshot and a row the archiver moves
+    // mid-export is neither missed nor written twice. The two result sets stay open together on that
+    // connection, which relies on the cursor fetch DataSourceConfig turns on for MySQL.
+    @Transactional(readOnly = true)
+    public long writeDoctorExport(Long doctorId, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        if (format == Format.CSV) writer.write(CSV_HEADER + "\r\n");
+
+        long rows = 0;
+        try (Stream<AppointmentExportRow> hot = appointmentRepository.streamDoctorExport(doctorId);
+             Stream<AppointmentExportRow> archived = appointmentArchiveRepository.streamDoctorExport(doctorId)) {
+            Iterator<AppointmentExportRow> hotRows = hot.iterator();
+            Iterator<AppointmentExportRow> archivedRows = archived.iterator();
+            AppointmentExportRow h = hotRows.hasNext() ? hotRows.next() : null;
+            AppointmentExportRow a = archivedRows.hasNext() ? archivedRows.next() : null;
+            while (h != null || a != null) {
+                if (a == null || (h != null && ORDER.compare(h, a) <= 0)) {
+                    write(writer, format, h);
+                    h = hotRows.hasNext() ? hotRows.next() : null;
+                } else {
+                    write(writer, format, a);
+                    a = archivedRows.hasNext() ? archivedRows.next() : null;
+                }
+                rows++;
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private void write(Writer writer, Format format, AppointmentExportRow row) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+            return;
+        }
+        writer.write(String.valueOf(row.id()));
+        writer.write(',');
+        writer.write(String.valueOf(row.scheduledAt()));
+        writer.write(',');
+        writer.write(String.valueOf(row.durationMinutes()));
+        writer.write(',');
+        cell(writer, row.status() != null ? row.status().name() : null);
+        cell(writer, row.patientId() != null ? row.patientId().toString() : null);
+        cell(writer, row.patientName());
+        cell(writer, row.patientEmail());
+        cell(writer, row.message());
+        cell(writer, row.cancelledBy());
+        cell(writer, row.cancelReason());
+        cell(writer, row.resolvedAt() != null ? row.resolvedAt().toString() : null);
+        cell(writer, row.createdAt() != null ? row.createdAt().toString() : null);
+        if (row.updatedAt() != null) writer.write(row.updatedAt().toString());
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting. Free-text cells that a spreadsheet would read as a formula get a leading quote.
+    private static void cell(Writer writer, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@') value = "'" + value;
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write(',');
+    }
+}
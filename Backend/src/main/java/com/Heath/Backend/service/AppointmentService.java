@@ -3,22 +3,26 @@ package com.Heath.Backend.service;
 import java.security.SecureRandom;
 import java.time.*;
 import java.util.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.Heath.Backend.Models.Appointment;
 import com.Heath.Backend.Models.Doctor;
 import com.Heath.Backend.Models.User;
 import com.Heath.Backend.Models.Appointment.Status;
+import com.Heath.Backend.Repository.AppointmentArchiveRepository;
 import com.Heath.Backend.Repository.AppointmentRepository;
-import com.Heath.Backend.Repository.DoctorCloseDateRepository;
+import com.Heath.Backend.Repository.AppointmentSummary;
 import com.Heath.Backend.Repository.DoctorRepository;
 import com.Heath.Backend.Repository.UserRepository;
+import com.Heath.Backend.Repository.WaitlistEntryRepository;
 import com.Heath.Backend.Utils.ApiResponse;
-import com.Heath.Backend.Utils.EmailUtil;
+import com.Heath.Backend.Utils.OtpHasher;
+import com.Heath.Backend.Utils.PageCursor;
 
 import lombok.RequiredArgsConstructor;
 
@@ -27,17 +31,27 @@ import lombok.RequiredArgsConstructor;
 public class AppointmentService {
 
     private final AppointmentRepository appointmentRepository;
+    private final AppointmentArchiveRepository appointmentArchiveRepository;
     private final DoctorRepository doctorRepository;
-    private final DoctorCloseDateRepository doctorClosedDateRepository;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final EmailUtil emailUtil;
+    private final OtpHasher otpHasher;
+    private final EmailOutboxService emailOutboxService;
+    private final AvailabilityService availabilityService;
+    private final SlotOccupancyCache slotOccupancyCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppointmentEventHub appointmentEventHub;
+    private final WaitlistEntryRepository waitlistEntryRepository;
 
     private final SecureRandom random = new SecureRandom();
 
     private final int OTP_LENGTH = 6;
     private final Duration OTP_TTL = Duration.ofMinutes(15);
     private final int SEARCH_DAYS_AHEAD = 30;
+    private final int MAX_CURSOR_PAGE_SIZE = 100;
+    // Offset history reads page + 1 pages from each table; deeper pages are served by cursor only.
+    private final int MAX_HISTORY_OFFSET_ROWS = 1000;
+    private final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 23, 59);
+    private final List<Status> HISTORY_STATUSES = List.of(Status.RESOLVED, Status.CANCELLED, Status.OTP_LOCKED, Status.EXPIRED);
 
     private boolean isDevMode() {
         return false;
@@ -58,14 +72,23 @@ public class AppointmentService {
             return ApiResponse.error("invalid time format, expected HH:mm");
         }
 
-        Integer duration = payload.get("durationMinutes") != null ? Integer.parseInt(payload.get("durationMinutes")) : 30;
+        int duration;
+        try {
+            duration = payload.get("durationMinutes") != null ? Integer.parseInt(payload.get("durationMinutes")) : 30;
+        } catch (NumberFormatException e) {
+            return ApiResponse.error("invalid durationMinutes");
+        }
+        if (duration <= 0 || duration > AvailabilityService.MAX_DURATION_MINUTES) {
+            return ApiResponse.error("durationMinutes must be between 1 and " + AvailabilityService.MAX_DURATION_MINUTES);
+        }
         String message = payload.get("message");
 
         Optional<User> patientOpt = userRepository.findByEmail(patientEmail);
         User patient = patientOpt.orElse(null);
         if (patient == null) return ApiResponse.error("Patient not found");
 
-        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
+        // Held until commit, so the overlap check below cannot race another booking for this doctor.
+        Optional<Doctor> doctorOpt = doctorRepository.findByIdForUpdate(doctorId);
         if (doctorOpt.isEmpty()) return ApiResponse.error("Doctor not found");
         Doctor doctor = doctorOpt.get();
 
@@ -78,7 +101,7 @@ public class AppointmentService {
                 return ApiResponse.error("invalid date format, expected yyyy-MM-dd");
             }
         } else {
-            scheduledDate = findNextAvailableDateForTime(doctor, time);
+            scheduledDate = findNextAvailableDateForTime(doctor, time, duration);
             if (scheduledDate == null) return ApiResponse.error("Doctor not available for the selected time in the next " + SEARCH_DAYS_AHEAD + " days");
         }
 
@@ -92,11 +115,19 @@ public class AppointmentService {
             return ApiResponse.error("Selected time is outside doctor's clinic hours");
         }
 
-        List<Appointment> conflicts = appointmentRepository.findConflictingForExactStart(doctorId, scheduledAt);
-        if (!conflicts.isEmpty()) {
+        if (time.plusMinutes(duration).isAfter(doctor.getClinicCloseTime()) || time.plusMinutes(duration).isBefore(time)) {
+            return ApiResponse.error("Selected duration runs past doctor's clinic hours");
+        }
+
+        if (slotOccupancyCache.overlaps(doctor, scheduledAt, duration)) {
             return ApiResponse.error("Selected slot already taken");
         }
 
+        if (waitlistEntryRepository.existsHoldOverlapping(doctorId, scheduledAt, scheduledAt.plusMinutes(duration),
+                patient.getId(), LocalDateTime.now())) {
+            return ApiResponse.error("Selected slot is held for a waitlisted patient");
+        }
+
         Appointment appointment = new Appointment();
         appointment.setDoctor(doctor);
         appointment.setPatient(patient);
@@ -105,7 +136,7 @@ public class AppointmentService {
         appointment.setMessage(message);
 
         String otp = generateNumericOtp(OTP_LENGTH);
-        String otpHash = passwordEncoder.encode(otp);
+        String otpHash = otpHasher.hash(otp);
         appointment.setOtpHash(otpHash);
         appointment.setOtpExpiry(LocalDateTime.now().plus(OTP_TTL));
         appointment.setOtpAttempts(0);
@@ -113,12 +144,17 @@ public class AppointmentService {
         appointment.setStatus(Status.PENDING);
 
         Appointment saved = appointmentRepository.save(appointment);
+        // Bumped on the locked, managed row rather than with a bulk update, so the entity never holds
+        // a stale version that a later flush could write back.
+        doctor.setBookingVersion((doctor.getBookingVersion() != null ? doctor.getBookingVersion() : 0L) + 1);
+        slotOccupancyCache.recordBooking(doctor, scheduledAt, duration);
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, null));
 
         String subject = "Your appointment OTP";
         String body = "Your OTP for appointment with Dr. " + doctor.getFullname() + " on " + scheduledAt.toString() +
                 " is: " + otp + ". It will expire in " + OTP_TTL.toMinutes() + " minutes.";
 
-        emailUtil.sendSimpleEmail(patient.getEmail(), subject, body);
+        emailOutboxService.enqueue(patient.getEmail(), subject, body);
 
         Map<String, Object> resp = new HashMap<>();
         resp.put("appointment", sanitize(saved));
@@ -131,7 +167,7 @@ public class AppointmentService {
 
     @Transactional
     public ApiResponse<Object> resendOtp(String patientEmail, Long appointmentId) {
-        Optional<Appointment> opt = appointmentRepository.findById(appointmentId);
+        Optional<Appointment> opt = appointmentRepository.findWithPartiesById(appointmentId);
         if (opt.isEmpty()) return ApiResponse.error("Appointment not found");
         Appointment appointment = opt.get();
 
@@ -147,7 +183,7 @@ public class AppointmentService {
         }
 
         String newOtp = generateNumericOtp(OTP_LENGTH);
-        appointment.setOtpHash(passwordEncoder.encode(newOtp));
+        appointment.setOtpHash(otpHasher.hash(newOtp));
         appointment.setOtpExpiry(LocalDateTime.now().plus(OTP_TTL));
         appointment.setOtpAttempts(0);
         appointmentRepository.save(appointment);
@@ -161,7 +197,7 @@ public class AppointmentService {
         String body = "Your new OTP for appointment with Dr. " + (doctor != null ? doctor.getFullname() : "") +
                 " on " + appointment.getScheduledAt().toString() + " is: " + newOtp;
 
-        emailUtil.sendSimpleEmail(patient.getEmail(), subject, body);
+        emailOutboxService.enqueue(patient.getEmail(), subject, body);
 
         Map<String, Object> resp = new HashMap<>();
         resp.put("otpSent", true);
@@ -193,16 +229,18 @@ public class AppointmentService {
         if (appointment.getOtpAttempts() >= appointment.getMaxOtpAttempts()) {
             appointment.setStatus(Status.OTP_LOCKED);
             appointmentRepository.save(appointment);
+            eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment, Status.PENDING));
             return ApiResponse.error("OTP attempts exhausted; appointment locked");
         }
 
-        boolean ok = passwordEncoder.matches(otpProvided, appointment.getOtpHash());
+        boolean ok = otpHasher.matches(otpProvided, appointment.getOtpHash());
         if (!ok) {
             appointment.setOtpAttempts(appointment.getOtpAttempts() + 1);
             appointmentRepository.save(appointment);
             if (appointment.getOtpAttempts() >= appointment.getMaxOtpAttempts()) {
                 appointment.setStatus(Status.OTP_LOCKED);
                 appointmentRepository.save(appointment);
+                eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment, Status.PENDING));
                 return ApiResponse.error("Wrong OTP. Attempts exhausted; appointment locked");
             }
             return ApiResponse.error("Wrong OTP");
@@ -212,6 +250,7 @@ public class AppointmentService {
         appointment.setResolvedBy(doctor.getId());
         appointment.setResolvedAt(LocalDateTime.now());
         appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment, Status.PENDING));
 
         Optional<User> patientOpt = userRepository.findById(appointment.getPatient().getId());
         User patient = patientOpt.orElse(null);
@@ -219,7 +258,7 @@ public class AppointmentService {
         if (patient != null) {
             String sub = "Appointment completed";
             String body = "Your appointment with Dr. " + doctor.getFullname() + " on " + appointment.getScheduledAt() + " is marked as completed.";
-            emailUtil.sendSimpleEmail(patient.getEmail(), sub, body);
+            emailOutboxService.enqueue(patient.getEmail(), sub, body);
         }
 
         return ApiResponse.success("Appointment resolved successfully", Map.of("appointment", sanitize(appointment)));
@@ -227,9 +266,9 @@ public class AppointmentService {
 
     @Transactional
     public ApiResponse<Object> cancelAppointment(String requesterEmail, Long appointmentId, String reason) {
-        Optional<Appointment> appointmentOpt = appointmentRepository.findById(appointmentId);
-        if (appointmentOpt.isEmpty()) return ApiResponse.error("Appointment not found");
-        Appointment appointment = appointmentOpt.get();
+        // Locked so that two racing cancellations free the slot (and offer it to the waitlist) once.
+        Appointment appointment = appointmentRepository.findByIdForUpdate(appointmentId);
+        if (appointment == null) return ApiResponse.error("Appointment not found");
 
         Optional<User> userOpt = userRepository.findByEmail(requesterEmail);
         User user = userOpt.orElse(null);
@@ -250,12 +289,13 @@ public class AppointmentService {
         appointment.setCancelledBy(isDoctor ? "DOCTOR" : "PATIENT");
         appointment.setCancelReason(reason);
         appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment, Status.PENDING));
 
         if (isDoctor) {
             Optional<User> pat = userRepository.findById(appointment.getPatient().getId());
             User p = pat.orElse(null);
             if (p != null) {
-                emailUtil.sendSimpleEmail(
+                emailOutboxService.enqueue(
                         p.getEmail(),
                         "Appointment cancelled by doctor",
                         "Your appointment with Dr. " + doctor.getFullname() + " was cancelled.\n\nReason: " + reason
@@ -265,7 +305,7 @@ public class AppointmentService {
             Optional<Doctor> d = doctorRepository.findById(appointment.getDoctor().getId());
             Doctor doc = d.orElse(null);
             if (doc != null) {
-                emailUtil.sendSimpleEmail(
+                emailOutboxService.enqueue(
                         doc.getEmail(),
                         "Appointment cancelled by patient",
                         "Appointment with patient Name " + appointment.getPatient().getUserName() + " was cancelled.\n\nReason: " + reason
@@ -282,12 +322,10 @@ public class AppointmentService {
         if (patient == null) return ApiResponse.error("Patient not found");
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Appointment> result = appointmentRepository.findByPatient_IdAndStatusAndScheduledAtAfterOrderByScheduledAtAsc(
-                patient.getId(), Status.PENDING, LocalDateTime.now(), pageable);
+        Page<AppointmentSummary> result = appointmentRepository.findPatientUpcomingSummaries(
+                patient.getId(), LocalDateTime.now(), pageable);
 
-        List<Appointment> sanitized = result.getContent().stream().map(this::sanitize).toList();
-
-        return ApiResponse.success("Upcoming appointments", Map.of("appointments", sanitized, "page", result.getNumber(), "totalPages", result.getTotalPages()));
+        return ApiResponse.success("Upcoming appointments", Map.of("appointments", result.getContent(), "page", result.getNumber(), "totalPages", result.getTotalPages()));
     }
 
     public ApiResponse<Object> getPatientHistory(String patientEmail, int page, int size) {
@@ -295,13 +333,19 @@ public class AppointmentService {
         User patient = patientOpt.orElse(null);
         if (patient == null) return ApiResponse.error("Patient not found");
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Appointment> result = appointmentRepository.findByPatient_IdAndStatusInOrderByScheduledAtDesc(
-                patient.getId(), List.of(Status.RESOLVED, Status.CANCELLED, Status.OTP_LOCKED), pageable);
-
-        List<Appointment> sanitized = result.getContent().stream().map(this::sanitize).toList();
-
-        return ApiResponse.success("Appointment history", Map.of("appointments", sanitized, "page", result.getNumber(), "totalPages", result.getTotalPages()));
+        Pageable pageable = PageRequest.of(page, clampPageSize(size));
+        int window = historyWindow(pageable);
+        if (window > MAX_HISTORY_OFFSET_ROWS) {
+            return ApiResponse.error("page is too deep for offset paging; use the cursor parameter instead");
+        }
+        List<AppointmentSummary> merged = mergeNewestFirst(
+                appointmentRepository.findPatientHistoryBefore(patient.getId(), HISTORY_STATUSES, END_OF_TIME, Long.MAX_VALUE, PageRequest.of(0, window)),
+                appointmentArchiveRepository.findPatientHistoryBefore(patient.getId(), END_OF_TIME, Long.MAX_VALUE, PageRequest.of(0, window)),
+                window);
+        long total = appointmentRepository.countByPatient_IdAndStatusIn(patient.getId(), HISTORY_STATUSES)
+                + appointmentArchiveRepository.countByPatient_Id(patient.getId());
+
+        return ApiResponse.success("Appointment history", historyPage(merged, pageable, total));
     }
 
     public ApiResponse<Object> getDoctorUpcoming(String doctorEmail, int page, int size) {
@@ -310,12 +354,10 @@ public class AppointmentService {
         if (doctor == null) return ApiResponse.error("Doctor not found");
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Appointment> result = appointmentRepository.findByDoctor_IdAndStatusAndScheduledAtAfterOrderByScheduledAtAsc(
-                doctor.getId(), Status.PENDING, LocalDateTime.now(), pageable);
+        Page<AppointmentSummary> result = appointmentRepository.findDoctorUpcomingSummaries(
+                doctor.getId(), LocalDateTime.now(), pageable);
 
-        List<Appointment> sanitized = result.getContent().stream().map(this::sanitize).toList();
-
-        return ApiResponse.success("Doctor upcoming appointments", Map.of("appointments", sanitized, "page", result.getNumber(), "totalPages", result.getTotalPages()));
+        return ApiResponse.success("Doctor upcoming appointments", Map.of("appointments", result.getContent(), "page", result.getNumber(), "totalPages", result.getTotalPages()));
     }
 
     public ApiResponse<Object> getDoctorHistory(String doctorEmail, int page, int size) {
@@ -323,42 +365,203 @@ public class AppointmentService {
         Doctor doctor = doctorOpt.orElse(null);
         if (doctor == null) return ApiResponse.error("Doctor not found");
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Appointment> result = appointmentRepository.findByDoctor_IdAndStatusInOrderByScheduledAtDesc(
-                doctor.getId(), List.of(Status.RESOLVED, Status.CANCELLED, Status.OTP_LOCKED), pageable);
+        Pageable pageable = PageRequest.of(page, clampPageSize(size));
+        int window = historyWindow(pageable);
+        if (window > MAX_HISTORY_OFFSET_ROWS) {
+            return ApiResponse.error("page is too deep for offset paging; use the cursor parameter instead");
+        }
+        List<AppointmentSummary> merged = mergeNewestFirst(
+                appointmentRepository.findDoctorHistoryBefore(doctor.getId(), HISTORY_STATUSES, END_OF_TIME, Long.MAX_VALUE, PageRequest.of(0, window)),
+                appointmentArchiveRepository.findDoctorHistoryBefore(doctor.getId(), END_OF_TIME, Long.MAX_VALUE, PageRequest.of(0, window)),
+                window);
+        long total = appointmentRepository.countByDoctor_IdAndStatusIn(doctor.getId(), HISTORY_STATUSES)
+                + appointmentArchiveRepository.countByDoctor_Id(doctor.getId());
+
+        return ApiResponse.success("Doctor appointment history", historyPage(merged, pageable, total));
+    }
 
-        List<Appointment> sanitized = result.getContent().stream().map(this::sanitize).toList();
+    public ApiResponse<Object> subscribeDoctor(String doctorEmail) {
+        Doctor doctor = doctorRepository.findByEmail(doctorEmail).orElse(null);
+        if (doctor == null) return ApiResponse.error("Doctor not found");
+        SseEmitter emitter = appointmentEventHub.subscribe(AppointmentEventHub.Audience.DOCTOR, doctor.getId());
+        if (emitter == null) return ApiResponse.error("Too many open streams, try again later");
+        return ApiResponse.success("Subscribed", emitter);
+    }
 
-        return ApiResponse.success("Doctor appointment history", Map.of("appointments", sanitized, "page", result.getNumber(), "totalPages", result.getTotalPages()));
+    public ApiResponse<Object> subscribePatient(String patientEmail) {
+        User patient = userRepository.findByEmail(patientEmail).orElse(null);
+        if (patient == null) return ApiResponse.error("Patient not found");
+        SseEmitter emitter = appointmentEventHub.subscribe(AppointmentEventHub.Audience.PATIENT, patient.getId());
+        if (emitter == null) return ApiResponse.error("Too many open streams, try again later");
+        return ApiResponse.success("Subscribed", emitter);
     }
 
-    private LocalDate findNextAvailableDateForTime(Doctor doctor, LocalTime time) {
-        LocalDate today = LocalDate.now();
-        for (int i = 0; i < SEARCH_DAYS_AHEAD; i++) {
-            LocalDate candidate = today.plusDays(i);
+    public ApiResponse<Object> getPatientUpcomingByCursor(String patientEmail, String cursor, int size) {
+        User patient = userRepository.findByEmail(patientEmail).orElse(null);
+        if (patient == null) return ApiResponse.error("Patient not found");
 
-            if (doctor.getWorkingDays() == null || !doctor.getWorkingDays().contains(candidate.getDayOfWeek().toString())) {
-                continue;
-            }
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error("invalid cursor");
+        }
+        int limit = clampPageSize(size);
 
-            boolean isClosed = doctorClosedDateRepository.existsByDoctorIdAndClosedDate(doctor.getId(), candidate);
-            if (isClosed) continue;
+        List<AppointmentSummary> rows = appointmentRepository.findPatientUpcomingAfter(
+                patient.getId(),
+                after != null ? after.scheduledAt() : LocalDateTime.now(),
+                after != null ? after.id() : Long.MAX_VALUE,
+                PageRequest.of(0, limit + 1));
 
-            if (!isWithinClinicHours(doctor, time)) continue;
+        return ApiResponse.success("Upcoming appointments", keysetPage(rows, limit));
+    }
 
-            LocalDateTime candDateTime = LocalDateTime.of(candidate, time);
-            List<Appointment> conflicts = appointmentRepository.findConflictingForExactStart(doctor.getId(), candDateTime);
+    public ApiResponse<Object> getPatientHistoryByCursor(String patientEmail, String cursor, int size) {
+        User patient = userRepository.findByEmail(patientEmail).orElse(null);
+        if (patient == null) return ApiResponse.error("Patient not found");
 
-            if (!conflicts.isEmpty()) continue;
+        PageCursor before;
+        try {
+            before = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error("invalid cursor");
+        }
+        int limit = clampPageSize(size);
+
+        LocalDateTime beforeAt = before != null ? before.scheduledAt() : END_OF_TIME;
+        Long beforeId = before != null ? before.id() : Long.MAX_VALUE;
+        List<AppointmentSummary> rows = mergeNewestFirst(
+                appointmentRepository.findPatientHistoryBefore(patient.getId(), HISTORY_STATUSES, beforeAt, beforeId, PageRequest.of(0, limit + 1)),
+                appointmentArchiveRepository.findPatientHistoryBefore(patient.getId(), beforeAt, beforeId, PageRequest.of(0, limit + 1)),
+                limit + 1);
+
+        return ApiResponse.success("Appointment history", keysetPage(rows, limit));
+    }
+
+    public ApiResponse<Object> getDoctorUpcomingByCursor(String doctorEmail, String cursor, int size) {
+        Doctor doctor = doctorRepository.findByEmail(doctorEmail).orElse(null);
+        if (doctor == null) return ApiResponse.error("Doctor not found");
 
-            return candidate;
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error("invalid cursor");
         }
-        return null;
+        int limit = clampPageSize(size);
+
+        List<AppointmentSummary> rows = appointmentRepository.findDoctorUpcomingAfter(
+                doctor.getId(),
+                after != null ? after.scheduledAt() : LocalDateTime.now(),
+                after != null ? after.id() : Long.MAX_VALUE,
+                PageRequest.of(0, limit + 1));
+
+        return ApiResponse.success("Doctor upcoming appointments", keysetPage(rows, limit));
+    }
+
+    public ApiResponse<Object> getDoctorHistoryByCursor(String doctorEmail, String cursor, int size) {
+        Doctor doctor = doctorRepository.findByEmail(doctorEmail).orElse(null);
+        if (doctor == null) return ApiResponse.error("Doctor not found");
+
+        PageCursor before;
+        try {
+            before = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error("invalid cursor");
+        }
+        int limit = clampPageSize(size);
+
+        LocalDateTime beforeAt = before != null ? before.scheduledAt() : END_OF_TIME;
+        Long beforeId = before != null ? before.id() : Long.MAX_VALUE;
+        List<AppointmentSummary> rows = mergeNewestFirst(
+                appointmentRepository.findDoctorHistoryBefore(doctor.getId(), HISTORY_STATUSES, beforeAt, beforeId, PageRequest.of(0, limit + 1)),
+                appointmentArchiveRepository.findDoctorHistoryBefore(doctor.getId(), beforeAt, beforeId, PageRequest.of(0, limit + 1)),
+                limit + 1);
+
+        return ApiResponse.success("Doctor appointment history", keysetPage(rows, limit));
+    }
+
+    // rows holds up to limit + 1 entries; the extra one only tells us whether another page exists.
+    private Map<String, Object> keysetPage(List<AppointmentSummary> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<AppointmentSummary> page = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            AppointmentSummary last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.scheduledAt(), last.id()).encode();
+        }
+
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("appointments", page);
+        resp.put("nextCursor", nextCursor);
+        resp.put("hasMore", hasMore);
+        return resp;
+    }
+
+    /*
+     * History lives in two tables: recent terminal rows in appointments, older ones in
+     * appointments_archive. Both sides are read newest first on (scheduledAt, id) and merged;
+     * ids are unique across the tables because archived rows keep their original id.
+     */
+    private List<AppointmentSummary> mergeNewestFirst(List<AppointmentSummary> hot, List<AppointmentSummary> archived, int limit) {
+        if (archived.isEmpty()) return hot.size() > limit ? hot.subList(0, limit) : hot;
+        if (hot.isEmpty()) return archived.size() > limit ? archived.subList(0, limit) : archived;
+
+        List<AppointmentSummary> merged = new ArrayList<>(Math.min(limit, hot.size() + archived.size()));
+        int h = 0, a = 0;
+        while (merged.size() < limit && (h < hot.size() || a < archived.size())) {
+            if (a >= archived.size() || (h < hot.size() && newerFirst(hot.get(h), archived.get(a)) <= 0)) {
+                merged.add(hot.get(h++));
+            } else {
+                merged.add(archived.get(a++));
+            }
+        }
+        return merged;
+    }
+
+    private static int newerFirst(AppointmentSummary x, AppointmentSummary y) {
+        int byTime = y.scheduledAt().compareTo(x.scheduledAt());
+        return byTime != 0 ? byTime : Long.compare(y.id(), x.id());
+    }
+
+    // Offset paging over the merged history needs the first (page + 1) * size rows of each table,
+    // so the caller rejects windows past MAX_HISTORY_OFFSET_ROWS.
+    private int historyWindow(Pageable pageable) {
+        return (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+    }
+
+    // nextCursor lets a client continue past the offset limit in cursor mode from where this page ends.
+    private Map<String, Object> historyPage(List<AppointmentSummary> merged, Pageable pageable, long total) {
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        List<AppointmentSummary> page = merged.subList(from, merged.size());
+        int totalPages = (int) Math.ceil((double) total / pageable.getPageSize());
+
+        String nextCursor = null;
+        if (!page.isEmpty() && pageable.getOffset() + page.size() < total) {
+            AppointmentSummary last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.scheduledAt(), last.id()).encode();
+        }
+
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("appointments", page);
+        resp.put("page", pageable.getPageNumber());
+        resp.put("totalPages", totalPages);
+        resp.put("nextCursor", nextCursor);
+        return resp;
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    private LocalDate findNextAvailableDateForTime(Doctor doctor, LocalTime time, int duration) {
+        return availabilityService.findNextAvailableDate(doctor, time, duration, LocalDate.now(), SEARCH_DAYS_AHEAD);
     }
 
     private boolean isWithinClinicHours(Doctor doctor, LocalTime time) {
-        if (doctor.getClinicOpenTime() == null || doctor.getClinicCloseTime() == null) return false;
-        return !time.isBefore(doctor.getClinicOpenTime()) && time.isBefore(doctor.getClinicCloseTime());
+        return availabilityService.isWithinClinicHours(doctor, time);
     }
 
     private String generateNumericOtp(int length) {
@@ -411,7 +614,7 @@ public class AppointmentService {
             safeDoctor.setProfileImageUrl(doc.getProfileImageUrl());
             safeDoctor.setClinicOpenTime(doc.getClinicOpenTime());
             safeDoctor.setClinicCloseTime(doc.getClinicCloseTime());
-            safeDoctor.setWorkingDays(doc.getWorkingDays());
+            safeDoctor.setWorkingDays(doc.getWorkingDays() != null ? new HashSet<>(doc.getWorkingDays()) : null);
             safeDoctor.setVerified(doc.getVerified());
             safeDoctor.setRole(doc.getRole());
             safe.setDoctor(safeDoctor);
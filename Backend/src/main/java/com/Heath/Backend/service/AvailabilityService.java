@@ -0,0 +1,188 @@
+package com.Heath.Backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Models.DoctorCloseddate;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.BookedInterval;
+import com.Heath.Backend.Repository.DoctorCloseDateRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class AvailabilityService {
+
+    public static final int MAX_DURATION_MINUTES = 240;
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorCloseDateRepository doctorClosedDateRepository;
+
+    // Rows written before durations were validated can run longer than MAX_DURATION_MINUTES. Read
+    // once; every later booking is validated, so it can only be too large, never too small.
+    private volatile int lookbackMinutes = -1;
+
+    /**
+     * Finds the first day in [from, from + daysAhead) on which the doctor works, the clinic is open
+     * and no pending appointment overlaps [time, time + durationMinutes). The whole window, plus the
+     * lookback before it, is loaded with two range queries (closed dates and pending appointments)
+     * and resolved in memory.
+     */
+    public LocalDate findNextAvailableDate(Doctor doctor, LocalTime time, int durationMinutes, LocalDate from, int daysAhead) {
+        if (daysAhead <= 0 || !isWithinClinicHours(doctor, time)) return null;
+        if (time.plusMinutes(durationMinutes).isAfter(doctor.getClinicCloseTime())) return null;
+
+        Set<String> workingDays = doctor.getWorkingDays();
+        if (workingDays == null || workingDays.isEmpty()) return null;
+
+        LocalDate to = from.plusDays(daysAhead - 1L);
+
+        Set<LocalDate> closedDates = doctorClosedDateRepository
+                .findByDoctorIdAndClosedDateBetween(doctor.getId(), from, to)
+                .stream()
+                .map(DoctorCloseddate::getClosedDate)
+                .collect(Collectors.toSet());
+
+        // An appointment that started the evening before (or earlier, for a legacy row) can still
+        // overlap a candidate, so the range reaches back by the lookback.
+        int lookback = lookbackMinutes();
+        List<BookedInterval> booked = appointmentRepository.findPendingIntervalsBetween(
+                doctor.getId(), from.atStartOfDay().minusMinutes(lookback), to.plusDays(1).atStartOfDay());
+
+        LocalDateTime now = LocalDateTime.now();
+        int first = 0;
+        for (LocalDate candidate = from; !candidate.isAfter(to); candidate = candidate.plusDays(1)) {
+            if (!workingDays.contains(candidate.getDayOfWeek().toString())) continue;
+            if (closedDates.contains(candidate)) continue;
+
+            LocalDateTime candStart = LocalDateTime.of(candidate, time);
+            if (candStart.isBefore(now)) continue;
+
+            // Rows are sorted by start and candidates only move forward, so a row starting more than
+            // the lookback before this candidate cannot overlap it or any later one.
+            LocalDateTime earliest = candStart.minusMinutes(lookback);
+            while (first < booked.size() && booked.get(first).scheduledAt().isBefore(earliest)) first++;
+
+            LocalDateTime candEnd = candStart.plusMinutes(durationMinutes);
+            boolean taken = false;
+            for (int i = first; i < booked.size() && booked.get(i).scheduledAt().isBefore(candEnd) && !taken; i++) {
+                taken = booked.get(i).overlaps(candStart, candEnd);
+            }
+            if (taken) continue;
+
+            return candidate;
+        }
+        return null;
+    }
+
+    /**
+     * Lists the free slots of {@code slotMinutes} between {@code from} and {@code to} (inclusive).
+     * Closed dates and pending appointments are each loaded with one range query, the latter reaching
+     * back by the lookback; the day grid is then merged against the appointments (sorted by start) in
+     * a single forward pass.
+     */
+    public Map<LocalDate, List<LocalTime>> findOpenSlots(Doctor doctor, LocalDate from, LocalDate to, int slotMinutes) {
+        Map<LocalDate, List<LocalTime>> open = new LinkedHashMap<>();
+        LocalTime openTime = doctor.getClinicOpenTime();
+        LocalTime closeTime = doctor.getClinicCloseTime();
+        Set<String> workingDays = doctor.getWorkingDays();
+        if (openTime == null || closeTime == null || !openTime.isBefore(closeTime)
+                || workingDays == null || workingDays.isEmpty() || from.isAfter(to)) {
+            return open;
+        }
+
+        Set<LocalDate> closedDates = doctorClosedDateRepository
+                .findByDoctorIdAndClosedDateBetween(doctor.getId(), from, to)
+                .stream()
+                .map(DoctorCloseddate::getClosedDate)
+                .collect(Collectors.toSet());
+
+        List<BookedInterval> booked = appointmentRepository.findPendingIntervalsBetween(
+                doctor.getId(), from.atStartOfDay().minusMinutes(lookbackMinutes()), to.plusDays(1).atStartOfDay());
+
+        forEachSlot(openTime, closeTime, workingDays, closedDates, booked, from, to, slotMinutes, LocalDateTime.now(),
+                (start, free) -> {
+                    if (free) open.computeIfAbsent(start.toLocalDate(), d -> new ArrayList<>()).add(start.toLocalTime());
+                });
+        return open;
+    }
+
+    /**
+     * Walks the {@code slotMinutes} grid of every working, non-closed day in [from, to] and reports
+     * each slot that has not started yet, with whether it is free. {@code booked} must be sorted by
+     * start; it is merged against the grid in a single forward pass.
+     */
+    static void forEachSlot(LocalTime openTime, LocalTime closeTime, Set<String> workingDays, Set<LocalDate> closedDates,
+                            List<BookedInterval> booked, LocalDate from, LocalDate to, int slotMinutes,
+                            LocalDateTime now, SlotVisitor visitor) {
+        int next = 0;
+        LocalDateTime busyUntil = LocalDateTime.MIN;
+
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (!workingDays.contains(day.getDayOfWeek().toString()) || closedDates.contains(day)) continue;
+
+            LocalDateTime dayClose = LocalDateTime.of(day, closeTime);
+            for (LocalDateTime start = LocalDateTime.of(day, openTime);
+                 !start.plusMinutes(slotMinutes).isAfter(dayClose);
+                 start = start.plusMinutes(slotMinutes)) {
+                LocalDateTime end = start.plusMinutes(slotMinutes);
+
+                // busyUntil is the latest end among appointments starting before this slot ends;
+                // slots only move forward, so neither the cursor nor busyUntil ever goes back.
+                while (next < booked.size() && booked.get(next).scheduledAt().isBefore(end)) {
+                    LocalDateTime bookedEnd = booked.get(next).end();
+                    if (bookedEnd.isAfter(busyUntil)) busyUntil = bookedEnd;
+                    next++;
+                }
+
+                if (start.isBefore(now)) continue;
+                visitor.visit(start, !busyUntil.isAfter(start));
+            }
+        }
+    }
+
+    /**
+     * Overlap check against the database. No pending appointment is longer than
+     * {@link #lookbackMinutes()}, so one bounded range on (doctor_id, status, scheduled_at) finds
+     * every candidate.
+     */
+    public boolean hasOverlappingPending(Long doctorId, LocalDateTime start, int durationMinutes) {
+        LocalDateTime end = start.plusMinutes(durationMinutes);
+        return appointmentRepository
+                .findPendingIntervalsBetween(doctorId, start.minusMinutes(lookbackMinutes()), end)
+                .stream()
+                .anyMatch(b -> b.overlaps(start, end));
+    }
+
+    /** How far before a slot a pending appointment that overlaps it can start. */
+    public int lookbackMinutes() {
+        int minutes = lookbackMinutes;
+        if (minutes < 0) {
+            Integer longest = appointmentRepository.findLongestPendingDuration();
+            minutes = Math.max(MAX_DURATION_MINUTES, longest != null ? longest : 0);
+            lookbackMinutes = minutes;
+        }
+        return minutes;
+    }
+
+    public boolean isWithinClinicHours(Doctor doctor, LocalTime time) {
+        if (doctor.getClinicOpenTime() == null || doctor.getClinicCloseTime() == null) return false;
+        return !time.isBefore(doctor.getClinicOpenTime()) && time.isBefore(doctor.getClinicCloseTime());
+    }
+
+    @FunctionalInterface
+    interface SlotVisitor {
+        void visit(LocalDateTime start, boolean free);
+    }
+}
@@ -0,0 +1,199 @@
+package com.Heath.Backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.Heath.Backend.Models.Appointment;
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.AppointmentSummary;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.ScheduleVersion;
+
+/**
+ * Serves a doctor's schedule as an iCalendar (RFC 5545) feed. Events are written one by one
+ * straight from a streamed query, so the feed costs the same memory for ten appointments as for
+ * ten thousand; the window covers recent history plus everything upcoming.
+ *
+ * <p>Calendar apps subscribe by URL, so the feed has its own token instead of the login JWT: it
+ * never expires, can only read this feed, and is revoked by issuing a new one or deleting it. Only
+ * its SHA-256 is stored; a 256-bit random token needs no salt or key stretching.
+ */
+@Service
+public class CalendarFeedService {
+
+    private static final DateTimeFormatter UTC_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final int FOLD_AT = 75;
+    private static final int TOKEN_BYTES = 32;
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final Duration past;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final SecureRandom random = new SecureRandom();
+
+    public CalendarFeedService(
+            AppointmentRepository appointmentRepository,
+            DoctorRepository doctorRepository,
+            @Value("${appointments.calendar.past:P30D}") Duration past
+    ) {
+        this.appointmentRepository = appointmentRepository;
+        this.doctorRepository = doctorRepository;
+        this.past = past;
+    }
+
+    /** Where a doctor's feed starts and what version it is at; null when the doctor does not exist. */
+    public Feed doctorFeed(String doctorEmail) {
+        return doctorRepository.findByEmail(doctorEmail).map(this::feedOf).orElse(null);
+    }
+
+    /** The feed a token from {@link #issueFeedToken} opens; null when the token is unknown or revoked. */
+    public Feed doctorFeedForToken(String token) {
+        if (token == null || token.isBlank()) return null;
+        return doctorRepository.findByCalendarTokenHash(tokenHash(token)).map(this::feedOf).orElse(null);
+    }
+
+    /** Replaces the doctor's feed token, revoking the previous one; null when the doctor does not exist. */
+    @Transactional
+    public String issueFeedToken(String doctorEmail) {
+        Doctor doctor = doctorRepository.findByEmail(doctorEmail).orElse(null);
+        if (doctor == null) return null;
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = TOKEN_ENCODER.encodeToString(bytes);
+        doctor.setCalendarTokenHash(tokenHash(token));
+        return token;
+    }
+
+    /** Revokes the doctor's feed token; false when the doctor does not exist. */
+    @Transactional
+    public boolean revokeFeedToken(String doctorEmail) {
+        Doctor doctor = doctorRepository.findByEmail(doctorEmail).orElse(null);
+        if (doctor == null) return false;
+        doctor.setCalendarTokenHash(null);
+        return true;
+    }
+
+    private Feed feedOf(Doctor doctor) {
+        LocalDateTime from = LocalDateTime.now().minus(past).toLocalDate().atStartOfDay();
+        ScheduleVersion version = appointmentRepository.findDoctorScheduleVersion(doctor.getId(), from);
+        return new Feed(doctor.getId(), from, version.lastModified(), version.count());
+    }
+
+    private static String tokenHash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return TOKEN_ENCODER.encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeDoctorCalendar(Feed feed, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        line(writer, "BEGIN:VCALENDAR");
+        line(writer, "VERSION:2.0");
+        line(writer, "PRODID:-//HeathSync//Doctor schedule//EN");
+        line(writer, "CALSCALE:GREGORIAN");
+        line(writer, "METHOD:PUBLISH");
+        line(writer, "X-WR-CALNAME:HeathSync appointments");
+        try (Stream<AppointmentSummary> rows = appointmentRepository.streamDoctorSchedule(feed.doctorId(), feed.from())) {
+            rows.forEach(row -> {
+                try {
+                    writeEvent(writer, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        line(writer, "END:VCALENDAR");
+        writer.flush();
+    }
+
+    private void writeEvent(Writer writer, AppointmentSummary row) throws IOException {
+        LocalDateTime stamp = row.updatedAt() != null ? row.updatedAt() : row.createdAt();
+        line(writer, "BEGIN:VEVENT");
+        line(writer, "UID:appointment-" + row.id() + "@heathsync");
+        line(writer, "DTSTAMP:" + utc(stamp));
+        line(writer, "LAST-MODIFIED:" + utc(stamp));
+        line(writer, "DTSTART:" + utc(row.scheduledAt()));
+        line(writer, "DTEND:" + utc(row.scheduledAt().plusMinutes(row.durationMinutes())));
+        String patient = row.patient() != null ? row.patient().userName() : null;
+        line(writer, "SUMMARY:" + text(patient != null ? "Appointment with " + patient : "Appointment"));
+        if (row.message() != null && !row.message().isBlank()) line(writer, "DESCRIPTION:" + text(row.message()));
+        String location = location(row.doctor());
+        if (location != null) line(writer, "LOCATION:" + text(location));
+        line(writer, "STATUS:" + (isActive(row.status()) ? "CONFIRMED" : "CANCELLED"));
+        line(writer, "END:VEVENT");
+    }
+
+    private static boolean isActive(Appointment.Status status) {
+        return status == Appointment.Status.PENDING || status == Appointment.Status.RESOLVED;
+    }
+
+    private static String location(AppointmentSummary.DoctorSummary doctor) {
+        if (doctor == null) return null;
+        String name = doctor.clinicName();
+        String address = doctor.clinicAddress();
+        if (name == null || name.isBlank()) return address;
+        if (address == null || address.isBlank()) return name;
+        return name + ", " + address;
+    }
+
+    private String utc(LocalDateTime time) {
+        return time.atZone(zone).withZoneSameInstant(ZoneOffset.UTC).format(UTC_STAMP);
+    }
+
+    private static String text(String value) {
+        return value.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,")
+                .replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
+    }
+
+    // Content lines end in CRLF and are folded so that no physical line exceeds 75 octets.
+    private static void line(Writer writer, String content) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < content.length(); ) {
+            int cp = content.codePointAt(i);
+            int size = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+            if (octets + size > FOLD_AT) {
+                writer.write("\r\n ");
+                octets = 1;
+            }
+            writer.write(content, i, Character.charCount(cp));
+            octets += size;
+            i += Character.charCount(cp);
+        }
+        writer.write("\r\n");
+    }
+
+    public record Feed(Long doctorId, LocalDateTime from, LocalDateTime lastModified, Long count) {
+
+        /** Changes when a row in the window is updated and when rows enter or leave it. */
+        public String etag() {
+            return "\"" + doctorId + "-" + count + "-" + (lastModified != null ? lastModified.toString() : "0") + "\"";
+        }
+    }
+}
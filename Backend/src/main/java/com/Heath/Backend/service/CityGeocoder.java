@@ -0,0 +1,91 @@
+package com.Heath.Backend.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.Heath.Backend.Repository.CityState;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Utils.GeoPoint;
+import com.Heath.Backend.Utils.SearchKeys;
+
+/**
+ * Offline geocoder from (city, state) to the city centre, backed by a bundled CSV
+ * ({@code city,state,latitude,longitude}). A city name that appears under one state only also
+ * resolves without a state; names shared by several states need the state to disambiguate.
+ */
+@Service
+public class CityGeocoder {
+
+    private static final Logger log = LoggerFactory.getLogger(CityGeocoder.class);
+
+    private final DoctorRepository doctorRepository;
+    private final Map<String, GeoPoint> byCityAndState = new HashMap<>();
+    private final Map<String, GeoPoint> byCity = new HashMap<>();
+
+    public CityGeocoder(
+            DoctorRepository doctorRepository,
+            @Value("${doctors.geo.cities:classpath:geo/cities.csv}") Resource cities
+    ) {
+        this.doctorRepository = doctorRepository;
+        load(cities);
+    }
+
+    /** Null when the city is not in the dataset. */
+    public GeoPoint locate(String city, String state) {
+        String cityKey = SearchKeys.normalize(city);
+        if (cityKey == null) return null;
+        String stateKey = SearchKeys.normalize(state);
+        if (stateKey != null) {
+            GeoPoint point = byCityAndState.get(cityKey + "|" + stateKey);
+            if (point != null) return point;
+        }
+        return byCity.get(cityKey);
+    }
+
+    /** Fills in coordinates for doctors saved without any, one UPDATE per distinct city. */
+    @Transactional
+    public int locateUnlocatedDoctors() {
+        int located = 0;
+        for (CityState place : doctorRepository.findUnlocatedCities()) {
+            GeoPoint point = locate(place.city(), place.state());
+            if (point == null) continue;
+            located += doctorRepository.locateCity(place.city(), place.state(), point.latitude(), point.longitude());
+        }
+        if (located > 0) log.info("Geocoded {} doctors from their city", located);
+        return located;
+    }
+
+    private void load(Resource cities) {
+        Set<String> ambiguous = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(cities.getInputStream(), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] cols = line.split(",");
+                GeoPoint point = new GeoPoint(Double.parseDouble(cols[2].trim()), Double.parseDouble(cols[3].trim()));
+                String cityKey = SearchKeys.normalize(cols[0]);
+                byCityAndState.put(cityKey + "|" + SearchKeys.normalize(cols[1]), point);
+                GeoPoint previous = byCity.putIfAbsent(cityKey, point);
+                if (previous != null && !previous.equals(point)) ambiguous.add(cityKey);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read city dataset " + cities, e);
+        }
+        ambiguous.forEach(byCity::remove);
+    }
+}
@@ -0,0 +1,465 @@
+package com.Heath.Backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.Heath.Backend.Models.Appointment.Status;
+import com.Heath.Backend.Models.DoctorCloseddate;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.BookedInterval;
+import com.Heath.Backend.Repository.DoctorBookedInterval;
+import com.Heath.Backend.Repository.DoctorCloseDateRepository;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.DoctorScheduleRow;
+import com.Heath.Backend.Repository.DoctorWorkingDay;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Precomputed availability of every verified doctor over the next few days: one bit per slot of
+ * the clinic day for whether it exists (working day, not closed, not yet started) and whether it is
+ * free, plus how complete the profile is. Ranking and "available soon" read only these summaries,
+ * keeping the best {@code (page + 1) * size} candidates in a bounded heap, so a page costs no queries
+ * beyond loading its profiles and never sorts the whole candidate set.
+ * <p>
+ * Summaries are built in id-ordered batches at startup and on {@code rebuild-interval}, which also
+ * moves the horizon forward. A committed booking clears its slots in place; a released one re-reads
+ * that doctor's day with one range query. Doctor changes (hours, working days, verification) mark
+ * the doctor dirty, and every {@code refresh-interval} dirty doctors are recomputed in batches.
+ * Either way the ranked recommendation pages the doctor can reorder are evicted.
+ */
+@Component
+public class DoctorAvailabilityIndex {
+
+    private static final double AVAILABILITY_WEIGHT = 0.6;
+    private static final double SPARE_CAPACITY_WEIGHT = 0.25;
+    private static final double COMPLETENESS_WEIGHT = 0.15;
+    private static final int PROFILE_FIELDS = 7;
+
+    private static final Comparator<Ranked> BEST_FIRST =
+            Comparator.comparingDouble(Ranked::score).reversed().thenComparingInt(Ranked::doctorId);
+    private static final Comparator<Opening> SOONEST_FIRST =
+            Comparator.comparing(Opening::at).thenComparingLong(Opening::doctorId);
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorCloseDateRepository doctorCloseDateRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final RecommendationCache recommendationCache;
+    private final int batchSize;
+    private final int horizonDays;
+    private final int slotMinutes;
+    private final Timer rankTimer;
+    private final Timer rebuildTimer;
+
+    private final Map<Integer, Summary> summaries = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+    // Set while a rebuild or refresh may be writing summaries read before a concurrent commit.
+    private volatile boolean summarizing;
+
+    public DoctorAvailabilityIndex(
+            DoctorRepository doctorRepository,
+            DoctorCloseDateRepository doctorCloseDateRepository,
+            AppointmentRepository appointmentRepository,
+            RecommendationCache recommendationCache,
+            MeterRegistry meterRegistry,
+            @Value("${doctors.availability.batch-size:500}") int batchSize,
+            @Value("${doctors.availability.horizon-days:14}") int horizonDays,
+            @Value("${doctors.availability.slot-minutes:30}") int slotMinutes
+    ) {
+        this.doctorRepository = doctorRepository;
+        this.doctorCloseDateRepository = doctorCloseDateRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.recommendationCache = recommendationCache;
+        this.batchSize = batchSize;
+        this.horizonDays = horizonDays;
+        this.slotMinutes = slotMinutes;
+        this.rankTimer = meterRegistry.timer("doctors.recommend.rank");
+        this.rebuildTimer = meterRegistry.timer("doctors.availability.rebuild");
+        Gauge.builder("doctors.availability.summaries", summaries, Map::size).register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Rebuilds and refreshes are serialised. A change committed while one runs is also marked dirty,
+    // so a summary read before the commit and stored after it is corrected by the next refresh.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${doctors.availability.rebuild-interval:PT1H}",
+               initialDelayString = "${doctors.availability.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        summarizing = true;
+        try {
+            rebuildTimer.record(() -> {
+                LocalDateTime now = LocalDateTime.now();
+                Set<Integer> seen = new HashSet<>();
+                long afterId = 0;
+                List<DoctorScheduleRow> rows;
+                do {
+                    rows = doctorRepository.findVerifiedSchedulesAfter(afterId, PageRequest.of(0, batchSize));
+                    if (rows.isEmpty()) break;
+                    summarize(rows, now).forEach((id, summary) -> {
+                        summaries.put(id, summary);
+                        seen.add(id);
+                    });
+                    afterId = rows.get(rows.size() - 1).id();
+                } while (rows.size() == batchSize);
+
+                summaries.keySet().retainAll(seen);
+                recommendationCache.clearRanked();
+                ready = true;
+            });
+        } finally {
+            summarizing = false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${doctors.availability.refresh-interval:PT30S}",
+               initialDelayString = "${doctors.availability.refresh-interval:PT30S}")
+    public synchronized void refresh() {
+        if (!ready || dirty.isEmpty()) return;
+        summarizing = true;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Integer> ids = new ArrayList<>();
+            for (Iterator<Integer> it = dirty.iterator(); it.hasNext(); ) {
+                ids.add(it.next());
+                it.remove();
+            }
+
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<Integer> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                Map<Integer, Summary> fresh = summarize(
+                        doctorRepository.findVerifiedSchedules(batch.stream().map(Integer::longValue).toList()), now);
+                for (Integer id : batch) {
+                    Summary updated = fresh.get(id);
+                    Summary previous = updated != null ? summaries.put(id, updated) : summaries.remove(id);
+                    if (previous != null) previous.evictFrom(recommendationCache);
+                    if (updated != null && (previous == null || !updated.sameKeys(previous))) updated.evictFrom(recommendationCache);
+                }
+            }
+        } finally {
+            summarizing = false;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.doctorId() == null || event.scheduledAt() == null) return;
+        int id = Math.toIntExact(event.doctorId());
+        if (summarizing) dirty.add(id);
+
+        Summary current = summaries.get(id);
+        LocalDate day = event.scheduledAt().toLocalDate();
+        if (current == null || !current.covers(day)) return;
+
+        LocalDateTime end = event.scheduledAt().plusMinutes(event.durationMinutes() != null ? event.durationMinutes() : 0);
+        Summary updated;
+        if (event.isCreated() && event.status() == Status.PENDING) {
+            updated = current.booked(event.scheduledAt(), end);
+        } else if (event.releasedSlot() && end.isAfter(LocalDateTime.now())) {
+            // Expiries and resolutions of past appointments cannot free a slot that has yet to start.
+            updated = current.withDay(day, appointmentRepository.findPendingIntervalsBetween(
+                    event.doctorId(), day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        } else {
+            return;
+        }
+        if (!summaries.replace(id, current, updated)) dirty.add(id);
+        updated.evictFrom(recommendationCache);
+    }
+
+    // fallbackExecution: DoctorService saves outside a surrounding transaction.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        if (event.doctorId() != null) dirty.add(Math.toIntExact(event.doctorId()));
+    }
+
+    /**
+     * One page of {@code candidates}, best first: soonest free slot, then most spare capacity, then
+     * most complete profile, weighted into one score; ties go to the lower id. Doctors without a
+     * summary yet score zero.
+     */
+    public SearchHits rank(int[] candidates, int page, int size) {
+        if (page < 0 || size < 1) throw new IllegalArgumentException("page must not be negative and size must be positive");
+        long from = (long) page * size;
+        if (from >= candidates.length) return new SearchHits(candidates.length, new long[0]);
+        int k = (int) Math.min(from + size, candidates.length);
+
+        return rankTimer.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            PriorityQueue<Ranked> worstFirst = new PriorityQueue<>(k, BEST_FIRST.reversed());
+            for (int id : candidates) {
+                Summary summary = summaries.get(id);
+                double score = summary != null ? summary.score(now) : 0;
+                if (worstFirst.size() == k) {
+                    Ranked worst = worstFirst.peek();
+                    if (score < worst.score() || (score == worst.score() && id > worst.doctorId())) continue;
+                    worstFirst.poll();
+                }
+                worstFirst.add(new Ranked(id, score));
+            }
+
+            Ranked[] top = worstFirst.toArray(new Ranked[0]);
+            Arrays.sort(top, BEST_FIRST);
+            long[] ids = new long[k - (int) from];
+            for (int i = 0; i < ids.length; i++) ids[i] = top[(int) from + i].doctorId();
+            return new SearchHits(candidates.length, ids);
+        });
+    }
+
+    /**
+     * The {@code candidates} with a free slot starting before {@code until}, soonest first (ties to
+     * the lower id), sliced to one page, with the number of such candidates.
+     */
+    public Openings availableBefore(int[] candidates, LocalDateTime until, int page, int size) {
+        if (page < 0 || size < 1) throw new IllegalArgumentException("page must not be negative and size must be positive");
+        long from = (long) page * size;
+        long upTo = from + size;
+
+        return rankTimer.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            PriorityQueue<Opening> latestFirst = new PriorityQueue<>(SOONEST_FIRST.reversed());
+            int total = 0;
+            for (int id : candidates) {
+                Summary summary = summaries.get(id);
+                LocalDateTime at = summary != null ? summary.earliestFree(now) : null;
+                if (at == null || !at.isBefore(until)) continue;
+                total++;
+                Opening opening = new Opening(id, at);
+                if (latestFirst.size() < upTo) {
+                    latestFirst.add(opening);
+                } else if (SOONEST_FIRST.compare(opening, latestFirst.peek()) < 0) {
+                    latestFirst.poll();
+                    latestFirst.add(opening);
+                }
+            }
+
+            List<Opening> top = new ArrayList<>(latestFirst);
+            top.sort(SOONEST_FIRST);
+            return new Openings(total, top.subList((int) Math.min(from, top.size()), top.size()));
+        });
+    }
+
+    /** Number of doctors with a summary. */
+    public int size() {
+        return summaries.size();
+    }
+
+    // Four queries per batch: the rows (by the caller), working days, closed dates and pending appointments.
+    private Map<Integer, Summary> summarize(List<DoctorScheduleRow> rows, LocalDateTime now) {
+        if (rows.isEmpty()) return Map.of();
+        List<Long> ids = rows.stream().map(DoctorScheduleRow::id).toList();
+        LocalDate from = now.toLocalDate();
+        LocalDate to = from.plusDays(horizonDays - 1L);
+
+        Map<Long, Set<String>> workingDays = doctorRepository.findWorkingDays(ids).stream()
+                .collect(Collectors.groupingBy(DoctorWorkingDay::doctorId,
+                        Collectors.mapping(DoctorWorkingDay::dayOfWeek, Collectors.toSet())));
+        Map<Long, Set<LocalDate>> closedDates = doctorCloseDateRepository.findByDoctorIdInAndClosedDateBetween(ids, from, to).stream()
+                .collect(Collectors.groupingBy(DoctorCloseddate::getDoctorId,
+                        Collectors.mapping(DoctorCloseddate::getClosedDate, Collectors.toSet())));
+        Map<Long, List<BookedInterval>> booked = appointmentRepository
+                .findPendingIntervalsForDoctors(ids, from.atStartOfDay(), to.plusDays(1).atStartOfDay()).stream()
+                .collect(Collectors.groupingBy(DoctorBookedInterval::doctorId,
+                        Collectors.mapping(DoctorBookedInterval::interval, Collectors.toList())));
+
+        Map<Integer, Summary> result = new HashMap<>(rows.size() * 2);
+        for (DoctorScheduleRow row : rows) {
+            LocalTime open = row.clinicOpenTime();
+            LocalTime close = row.clinicCloseTime();
+            Set<String> days = workingDays.getOrDefault(row.id(), Set.of());
+            int slotsPerDay = open != null && close != null && open.isBefore(close)
+                    ? (int) (ChronoUnit.MINUTES.between(open, close) / slotMinutes) : 0;
+
+            Summary summary = new Summary(row.cityKey(), row.stateKey(), row.specializationKey(), completeness(row),
+                    from, horizonDays, open, slotsPerDay, slotMinutes, new BitSet(), new BitSet());
+            if (slotsPerDay > 0 && !days.isEmpty()) {
+                AvailabilityService.forEachSlot(open, close, days, closedDates.getOrDefault(row.id(), Set.of()),
+                        booked.getOrDefault(row.id(), List.of()), from, to, slotMinutes, now, (start, free) -> {
+                            int bit = summary.bit(start);
+                            summary.slots.set(bit);
+                            if (free) summary.free.set(bit);
+                        });
+            }
+            result.put(Math.toIntExact(row.id()), summary);
+        }
+        return result;
+    }
+
+    private static float completeness(DoctorScheduleRow row) {
+        int filled = 0;
+        for (String field : new String[]{row.phoneNumber(), row.clinicName(), row.clinicAddress(), row.about(),
+                row.regNumber(), row.profileImageUrl()}) {
+            if (field != null && !field.isBlank()) filled++;
+        }
+        if (row.latitude() != null) filled++;
+        return (float) filled / PROFILE_FIELDS;
+    }
+
+    /** A doctor and the start of their first free slot. */
+    public record Opening(long doctorId, LocalDateTime at) {
+    }
+
+    /** One page of openings and how many candidates had one. */
+    public record Openings(int total, List<Opening> openings) {
+
+        public int totalPages(int size) {
+            return SearchHits.totalPages(total, size);
+        }
+    }
+
+    private record Ranked(int doctorId, double score) {
+    }
+
+    /**
+     * Slot {@code j} of day {@code d} of the horizon is bit {@code d * slotsPerDay + j}; it starts
+     * {@code j * slotMinutes} after {@code open}. {@code slots} marks the bookable slots, {@code free}
+     * those of them not overlapped by a PENDING appointment. Never modified once published: updates
+     * copy the bitsets.
+     */
+    private static final class Summary {
+        private final String cityKey;
+        private final String stateKey;
+        private final String specializationKey;
+        private final float completeness;
+        private final LocalDate firstDay;
+        private final int days;
+        private final LocalTime open;
+        private final int slotsPerDay;
+        private final int slotMinutes;
+        private final BitSet slots;
+        private final BitSet free;
+
+        Summary(String cityKey, String stateKey, String specializationKey, float completeness, LocalDate firstDay,
+                int days, LocalTime open, int slotsPerDay, int slotMinutes, BitSet slots, BitSet free) {
+            this.cityKey = cityKey;
+            this.stateKey = stateKey;
+            this.specializationKey = specializationKey;
+            this.completeness = completeness;
+            this.firstDay = firstDay;
+            this.days = days;
+            this.open = open;
+            this.slotsPerDay = slotsPerDay;
+            this.slotMinutes = slotMinutes;
+            this.slots = slots;
+            this.free = free;
+        }
+
+        boolean covers(LocalDate day) {
+            return slotsPerDay > 0 && !day.isBefore(firstDay) && day.isBefore(firstDay.plusDays(days));
+        }
+
+        int bit(LocalDateTime slotStart) {
+            int day = (int) ChronoUnit.DAYS.between(firstDay, slotStart.toLocalDate());
+            return day * slotsPerDay + (int) (ChronoUnit.MINUTES.between(open, slotStart.toLocalTime()) / slotMinutes);
+        }
+
+        LocalDateTime start(int bit) {
+            return LocalDateTime.of(firstDay.plusDays(bit / slotsPerDay), open.plusMinutes((long) (bit % slotsPerDay) * slotMinutes));
+        }
+
+        LocalDateTime earliestFree(LocalDateTime now) {
+            if (slotsPerDay == 0) return null;
+            int bit = free.nextSetBit(firstBitFrom(now));
+            return bit < 0 ? null : start(bit);
+        }
+
+        // A free slot now scores 1, one a day out 0.5, one a week out 0.125; none in the horizon scores 0.
+        // Spare capacity is taken over the whole horizon, including slots that started since the last rebuild.
+        double score(LocalDateTime now) {
+            LocalDateTime earliest = earliestFree(now);
+            double availability = earliest == null ? 0
+                    : 1 / (1 + Math.max(0, ChronoUnit.MINUTES.between(now, earliest)) / (24 * 60.0));
+            int bookable = slots.cardinality();
+            double spareCapacity = bookable == 0 ? 0 : (double) free.cardinality() / bookable;
+            return AVAILABILITY_WEIGHT * availability + SPARE_CAPACITY_WEIGHT * spareCapacity + COMPLETENESS_WEIGHT * completeness;
+        }
+
+        /** A copy with the slots overlapping [start, end) on start's day marked taken. */
+        Summary booked(LocalDateTime start, LocalDateTime end) {
+            BitSet taken = (BitSet) free.clone();
+            int[] range = overlapping(start.toLocalDate(), start, end);
+            if (range != null) taken.clear(range[0], range[1]);
+            return withFree(taken);
+        }
+
+        /** A copy with {@code day}'s free slots recomputed from its PENDING appointments, sorted by start. */
+        Summary withDay(LocalDate day, List<BookedInterval> booked) {
+            BitSet recomputed = (BitSet) free.clone();
+            int first = (int) ChronoUnit.DAYS.between(firstDay, day) * slotsPerDay;
+            recomputed.clear(first, first + slotsPerDay);
+            for (int bit = slots.nextSetBit(first); bit >= 0 && bit < first + slotsPerDay; bit = slots.nextSetBit(bit + 1)) {
+                recomputed.set(bit);
+            }
+            for (BookedInterval interval : booked) {
+                int[] range = overlapping(day, interval.scheduledAt(), interval.end());
+                if (range != null) recomputed.clear(range[0], range[1]);
+            }
+            return withFree(recomputed);
+        }
+
+        boolean sameKeys(Summary other) {
+            return Objects.equals(cityKey, other.cityKey) && Objects.equals(stateKey, other.stateKey)
+                    && Objects.equals(specializationKey, other.specializationKey);
+        }
+
+        void evictFrom(RecommendationCache cache) {
+            cache.evictRanked(cityKey, stateKey, specializationKey);
+        }
+
+        private Summary withFree(BitSet updated) {
+            return new Summary(cityKey, stateKey, specializationKey, completeness, firstDay, days, open, slotsPerDay,
+                    slotMinutes, slots, updated);
+        }
+
+        // Bits [from, to) of the slots on day that overlap [start, end), or null if none do.
+        private int[] overlapping(LocalDate day, LocalDateTime start, LocalDateTime end) {
+            LocalDateTime dayOpen = LocalDateTime.of(day, open);
+            long startMinute = ChronoUnit.MINUTES.between(dayOpen, start);
+            long endMinute = ChronoUnit.MINUTES.between(dayOpen, end) + (end.getSecond() != 0 || end.getNano() != 0 ? 1 : 0);
+            int fromSlot = (int) Math.max(0, Math.floorDiv(startMinute, slotMinutes));
+            int toSlot = (int) Math.min(slotsPerDay, Math.ceilDiv(endMinute, (long) slotMinutes));
+            if (fromSlot >= toSlot) return null;
+            int first = (int) ChronoUnit.DAYS.between(firstDay, day) * slotsPerDay;
+            return new int[]{first + fromSlot, first + toSlot};
+        }
+
+        private int firstBitFrom(LocalDateTime now) {
+            long day = ChronoUnit.DAYS.between(firstDay, now.toLocalDate());
+            if (day < 0) return 0;
+            if (day >= days) return days * slotsPerDay;
+            long minutes = ChronoUnit.MINUTES.between(open, now.toLocalTime());
+            if (now.toLocalTime().isAfter(open.plusMinutes(minutes))) minutes++;
+            long slot = Math.max(0, Math.ceilDiv(minutes, (long) slotMinutes));
+            return (int) (day * slotsPerDay + Math.min(slot, slotsPerDay));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.Heath.Backend.service;
+
+import com.Heath.Backend.Models.Doctor;
+
+/**
+ * Published by {@link DoctorService} after a doctor is registered, verified or edits their profile.
+ * Carries a snapshot of the searchable fields so listeners never touch the entity after commit.
+ */
+public record DoctorChangedEvent(
+        Long doctorId,
+        boolean verified,
+        String city,
+        String state,
+        String specialization,
+        String fullname,
+        String clinicName,
+        String about,
+        Double latitude,
+        Double longitude,
+        String previousCity,
+        String previousState
+) {
+
+    public static DoctorChangedEvent of(Doctor doctor) {
+        return of(doctor, doctor.getCity(), doctor.getState());
+    }
+
+    /** For profile edits, with where the doctor was listed before the edit. */
+    public static DoctorChangedEvent of(Doctor doctor, String previousCity, String previousState) {
+        return new DoctorChangedEvent(
+                doctor.getId(),
+                Boolean.TRUE.equals(doctor.getVerified()),
+                doctor.getCity(),
+                doctor.getState(),
+                doctor.getSpecialization(),
+                doctor.getFullname(),
+                doctor.getClinicName(),
+                doctor.getAbout(),
+                doctor.getLatitude(),
+                doctor.getLongitude(),
+                previousCity,
+                previousState
+        );
+    }
+}
@@ -0,0 +1,233 @@
+package com.Heath.Backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.Heath.Backend.Repository.DoctorGeoPoint;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Utils.GeoPoint;
+import com.Heath.Backend.Utils.SearchKeys;
+import com.Heath.Backend.Utils.SortedIntList;
+
+/**
+ * In-memory proximity index of verified doctors on a fixed 0.1° grid (about 11 km north-south).
+ * A query sweeps rows of cells outward from the caller's row and, within each row, columns outward
+ * from the caller's column, keeping the k closest doctors in a bounded max-heap. Each sweep stops as
+ * soon as a lower bound on the distance to its next cell exceeds the radius or the k-th closest so
+ * far, so a query touches a few hundred cells (a few whole rows near the poles, where meridians
+ * converge) and never the database. Loaded at startup
+ * (after geocoding doctors that have no coordinates yet) and kept current from {@link DoctorChangedEvent}s.
+ */
+@Component
+public class DoctorGeoIndex {
+
+    private static final double CELL_DEGREES = 0.1;
+    private static final int ROWS = 1800;
+    private static final int COLUMNS = 3600;
+    // Widens cell edges so rounding when a coordinate is bucketed can never make a bound overshoot.
+    private static final double EDGE_SLACK_DEGREES = 1e-9;
+
+    private static final Comparator<Nearby> CLOSEST_FIRST =
+            Comparator.comparingDouble(Nearby::distanceKm).thenComparingLong(Nearby::doctorId);
+
+    private final DoctorRepository doctorRepository;
+    private final CityGeocoder cityGeocoder;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, SortedIntList> cells = new HashMap<>();
+    private Map<Integer, Entry> entries = new HashMap<>();
+    private int[] occupiedCellsPerRow = new int[ROWS];
+    private volatile boolean ready;
+
+    public DoctorGeoIndex(DoctorRepository doctorRepository, CityGeocoder cityGeocoder) {
+        this.doctorRepository = doctorRepository;
+        this.cityGeocoder = cityGeocoder;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        cityGeocoder.locateUnlocatedDoctors();
+        lock.writeLock().lock();
+        try {
+            List<DoctorGeoPoint> rows = doctorRepository.findVerifiedGeoPoints();
+            cells = new HashMap<>();
+            entries = new HashMap<>(rows.size() * 2);
+            occupiedCellsPerRow = new int[ROWS];
+            for (DoctorGeoPoint row : rows) {
+                add(Math.toIntExact(row.id()), row.latitude(), row.longitude(), row.specialization());
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        if (event.doctorId() == null) return;
+        int id = Math.toIntExact(event.doctorId());
+        lock.writeLock().lock();
+        try {
+            remove(id);
+            if (event.verified() && event.latitude() != null && event.longitude() != null) {
+                add(id, event.latitude(), event.longitude(), event.specialization());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code k} doctors within {@code maxKm} of {@code origin}, closest first, optionally only
+     * of one specialization. A radius query is this with an unbounded {@code k}.
+     */
+    public List<Nearby> nearest(GeoPoint origin, double maxKm, String specialization, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive");
+        String specializationKey = SearchKeys.normalize(specialization);
+        int originRow = row(origin.latitude());
+        int originColumn = column(origin.longitude());
+        PriorityQueue<Nearby> farthestFirst = new PriorityQueue<>(CLOSEST_FIRST.reversed());
+
+        lock.readLock().lock();
+        try {
+            for (int rowOffset = 0; rowOffset < ROWS; rowOffset++) {
+                boolean inReach = false;
+                for (int row : rowOffset == 0 ? new int[] {originRow} : new int[] {originRow - rowOffset, originRow + rowOffset}) {
+                    if (row < 0 || row >= ROWS) continue;
+                    double bandSouth = row * CELL_DEGREES - 90 - EDGE_SLACK_DEGREES;
+                    double bandNorth = bandSouth + CELL_DEGREES + 2 * EDGE_SLACK_DEGREES;
+                    double latitudeGap = Math.max(0, Math.max(bandSouth - origin.latitude(), origin.latitude() - bandNorth));
+                    double cosines = Math.cos(Math.toRadians(origin.latitude()))
+                            * Math.cos(Math.toRadians(Math.min(90, Math.max(Math.abs(bandSouth), Math.abs(bandNorth)))));
+                    if (cellDistanceBoundKm(latitudeGap, cosines, 0) > cutoffKm(maxKm, k, farthestFirst)) continue;
+                    inReach = true;
+                    if (occupiedCellsPerRow[row] == 0) continue;
+
+                    for (int columnOffset = 0; columnOffset <= COLUMNS / 2; columnOffset++) {
+                        if (cellDistanceBoundKm(latitudeGap, cosines, columnOffset) > cutoffKm(maxKm, k, farthestFirst)) break;
+                        visit(cellKey(row, Math.floorMod(originColumn + columnOffset, COLUMNS)),
+                                origin, maxKm, specializationKey, k, farthestFirst);
+                        if (columnOffset != 0 && columnOffset != COLUMNS / 2) {
+                            visit(cellKey(row, Math.floorMod(originColumn - columnOffset, COLUMNS)),
+                                    origin, maxKm, specializationKey, k, farthestFirst);
+                        }
+                    }
+                }
+                // Rows only get farther on both sides, so once neither is in reach nothing further is.
+                if (!inReach) break;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Nearby> result = new ArrayList<>(farthestFirst);
+        result.sort(CLOSEST_FIRST);
+        return result;
+    }
+
+    /** Number of doctors currently indexed. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void visit(long cell, GeoPoint origin, double maxKm, String specializationKey, int k,
+                       PriorityQueue<Nearby> farthestFirst) {
+        SortedIntList ids = cells.get(cell);
+        if (ids != null) collect(ids, origin, maxKm, specializationKey, k, farthestFirst);
+    }
+
+    private void collect(SortedIntList ids, GeoPoint origin, double maxKm, String specializationKey, int k,
+                         PriorityQueue<Nearby> farthestFirst) {
+        for (int i = 0; i < ids.size(); i++) {
+            int id = ids.get(i);
+            Entry entry = entries.get(id);
+            if (specializationKey != null && !specializationKey.equals(entry.specialization())) continue;
+            double km = GeoPoint.distanceKm(origin.latitude(), origin.longitude(), entry.latitude(), entry.longitude());
+            if (km > maxKm) continue;
+            Nearby candidate = new Nearby(id, km);
+            if (farthestFirst.size() < k) {
+                farthestFirst.add(candidate);
+            } else if (CLOSEST_FIRST.compare(candidate, farthestFirst.peek()) < 0) {
+                farthestFirst.poll();
+                farthestFirst.add(candidate);
+            }
+        }
+    }
+
+    private static double cutoffKm(double maxKm, int k, PriorityQueue<Nearby> farthestFirst) {
+        return farthestFirst.size() == k ? Math.min(maxKm, farthestFirst.peek().distanceKm()) : maxKm;
+    }
+
+    // A lower bound on the distance to any point of a cell, from the two haversine terms taken at
+    // their smallest: the latitude gap to the cell's row, and the longitude gap to its column scaled
+    // by the cosines of the origin's latitude and of the row's most poleward edge. The latitude term
+    // alone keeps the bound growing row by row even at the poles, where the longitude term vanishes.
+    private static double cellDistanceBoundKm(double latitudeGapDegrees, double cosines, int columnOffset) {
+        double longitudeGapDegrees = Math.min(180, Math.max(0, (columnOffset - 1) * CELL_DEGREES - EDGE_SLACK_DEGREES));
+        double h = haversine(latitudeGapDegrees) + cosines * haversine(longitudeGapDegrees);
+        return 2 * GeoPoint.EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private static double haversine(double degrees) {
+        double half = Math.sin(Math.toRadians(degrees) / 2);
+        return half * half;
+    }
+
+    private void add(int id, double latitude, double longitude, String specialization) {
+        Entry entry = new Entry(latitude, longitude, SearchKeys.normalize(specialization),
+                cellKey(row(latitude), column(longitude)));
+        entries.put(id, entry);
+        cells.computeIfAbsent(entry.cell(), k -> {
+            occupiedCellsPerRow[(int) (k / COLUMNS)]++;
+            return new SortedIntList();
+        }).add(id);
+    }
+
+    private void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) return;
+        SortedIntList ids = cells.get(entry.cell());
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            cells.remove(entry.cell());
+            occupiedCellsPerRow[(int) (entry.cell() / COLUMNS)]--;
+        }
+    }
+
+    private static int row(double latitude) {
+        return Math.min(ROWS - 1, (int) Math.floor((latitude + 90) / CELL_DEGREES));
+    }
+
+    private static int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), COLUMNS);
+    }
+
+    private static long cellKey(int row, int column) {
+        return (long) row * COLUMNS + column;
+    }
+
+    /** A doctor and their great-circle distance from the query point. */
+    public record Nearby(long doctorId, double distanceKm) {
+    }
+
+    private record Entry(double latitude, double longitude, String specialization, long cell) {
+    }
+}
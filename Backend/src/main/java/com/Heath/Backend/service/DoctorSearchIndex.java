@@ -0,0 +1,181 @@
+package com.Heath.Backend.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.DoctorSearchKeys;
+import com.Heath.Backend.Utils.SearchKeys;
+import com.Heath.Backend.Utils.SortedIntList;
+
+/**
+ * In-memory inverted index of verified doctors by city, state and specialization. Each normalised
+ * value maps to an ascending posting list of doctor ids, so a search is a sorted intersection and a
+ * page slice, and the database is only asked for the profiles on that page. Loaded once at startup
+ * and kept current from {@link DoctorChangedEvent}s; until the first load finishes {@link #isReady()}
+ * is false and callers fall back to the database.
+ */
+@Component
+public class DoctorSearchIndex {
+
+    private final DoctorRepository doctorRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, SortedIntList> byCity = new HashMap<>();
+    private Map<String, SortedIntList> byState = new HashMap<>();
+    private Map<String, SortedIntList> bySpecialization = new HashMap<>();
+    private Map<Integer, Keys> indexed = new HashMap<>();
+    private volatile boolean ready;
+
+    public DoctorSearchIndex(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // The write lock is held across the read so that a change committed meanwhile is applied after
+    // the snapshot instead of being overwritten by it.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<DoctorSearchKeys> rows = doctorRepository.findVerifiedSearchKeys();
+            byCity = new HashMap<>();
+            byState = new HashMap<>();
+            bySpecialization = new HashMap<>();
+            indexed = new HashMap<>(rows.size() * 2);
+            for (DoctorSearchKeys row : rows) {
+                add(Math.toIntExact(row.id()), Keys.of(row.city(), row.state(), row.specialization()));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // fallbackExecution: DoctorService saves outside a surrounding transaction. Runs before the
+    // RecommendationCache listener, which relies on seeing the index already updated.
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        if (event.doctorId() == null) return;
+        int id = Math.toIntExact(event.doctorId());
+        lock.writeLock().lock();
+        try {
+            Keys previous = indexed.get(id);
+            if (previous != null) remove(id, previous);
+            if (event.verified()) add(id, Keys.of(event.city(), event.state(), event.specialization()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of verified doctors matching every non-blank criterion, ascending, sliced to one page.
+     * With no criteria at all nothing matches.
+     */
+    public SearchHits search(String city, String state, String specialization, int page, int size) {
+        if (page < 0 || size < 1) throw new IllegalArgumentException("page must not be negative and size must be positive");
+
+        lock.readLock().lock();
+        try {
+            SortedIntList[] terms = terms(city, state, specialization);
+            if (terms == null) return SearchHits.NONE;
+            if (terms.length == 1) return slice(terms[0].size(), terms[0]::get, page, size);
+            int[] matches = SortedIntList.intersect(terms);
+            return slice(matches.length, i -> matches[i], page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Every match of {@link #search}, ascending and unpaged, for callers that order the matches themselves. */
+    public int[] matches(String city, String state, String specialization) {
+        lock.readLock().lock();
+        try {
+            SortedIntList[] terms = terms(city, state, specialization);
+            if (terms == null) return new int[0];
+            return terms.length == 1 ? terms[0].toArray() : SortedIntList.intersect(terms);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Number of doctors currently indexed. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Posting lists of the non-blank criteria, or null when there are none or one has no postings.
+    private SortedIntList[] terms(String city, String state, String specialization) {
+        String cityKey = SearchKeys.normalize(city);
+        String stateKey = SearchKeys.normalize(state);
+        String specializationKey = SearchKeys.normalize(specialization);
+        if (cityKey == null && stateKey == null && specializationKey == null) return null;
+
+        SortedIntList[] terms = new SortedIntList[3];
+        int count = 0;
+        if (cityKey != null) terms[count++] = byCity.get(cityKey);
+        if (stateKey != null) terms[count++] = byState.get(stateKey);
+        if (specializationKey != null) terms[count++] = bySpecialization.get(specializationKey);
+        for (int i = 0; i < count; i++) {
+            if (terms[i] == null) return null;
+        }
+        return Arrays.copyOf(terms, count);
+    }
+
+    private static SearchHits slice(int total, IntUnaryOperator at, int page, int size) {
+        int from = (int) Math.min((long) page * size, total);
+        int to = (int) Math.min((long) from + size, total);
+        long[] ids = new long[to - from];
+        for (int i = 0; i < ids.length; i++) ids[i] = at.applyAsInt(from + i);
+        return new SearchHits(total, ids);
+    }
+
+    private void add(int id, Keys keys) {
+        indexed.put(id, keys);
+        post(byCity, keys.city(), id);
+        post(byState, keys.state(), id);
+        post(bySpecialization, keys.specialization(), id);
+    }
+
+    private void remove(int id, Keys keys) {
+        indexed.remove(id);
+        unpost(byCity, keys.city(), id);
+        unpost(byState, keys.state(), id);
+        unpost(bySpecialization, keys.specialization(), id);
+    }
+
+    private static void post(Map<String, SortedIntList> field, String key, int id) {
+        if (key != null) field.computeIfAbsent(key, k -> new SortedIntList()).add(id);
+    }
+
+    private static void unpost(Map<String, SortedIntList> field, String key, int id) {
+        if (key == null) return;
+        SortedIntList postings = field.get(key);
+        if (postings != null && postings.remove(id) && postings.isEmpty()) field.remove(key);
+    }
+
+    private record Keys(String city, String state, String specialization) {
+        static Keys of(String city, String state, String specialization) {
+            return new Keys(SearchKeys.normalize(city), SearchKeys.normalize(state), SearchKeys.normalize(specialization));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.Heath.Backend.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Repository.DoctorRepository;
+
+/**
+ * Fills the normalised search-key columns of doctor rows written before those columns existed.
+ * New and updated rows get their keys from the entity callbacks, so after one pass this finds
+ * nothing to do. Walks by id in batches, one transaction per batch.
+ */
+@Component
+public class DoctorSearchKeyBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorSearchKeyBackfill.class);
+
+    private final DoctorRepository doctorRepository;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+
+    public DoctorSearchKeyBackfill(
+            DoctorRepository doctorRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${doctors.search-keys.batch-size:500}") int batchSize
+    ) {
+        this.doctorRepository = doctorRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long afterId = 0;
+        int updated = 0;
+        Batch batch;
+        do {
+            long from = afterId;
+            batch = transaction.execute(status -> {
+                List<Doctor> doctors = doctorRepository.findWithMissingSearchKeys(from, PageRequest.of(0, batchSize));
+                doctors.forEach(Doctor::updateSearchKeys);
+                return new Batch(doctors.size(), doctors.isEmpty() ? from : doctors.get(doctors.size() - 1).getId());
+            });
+            updated += batch.size();
+            afterId = batch.lastId();
+        } while (batch.size() == batchSize);
+        if (updated > 0) log.info("Backfilled search keys for {} doctors", updated);
+    }
+
+    private record Batch(int size, long lastId) {
+    }
+}
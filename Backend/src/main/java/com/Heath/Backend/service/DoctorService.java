@@ -1,26 +1,37 @@
 package com.Heath.Backend.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.Random;
 import java.util.Set;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.Heath.Backend.Models.Doctor;
 import com.Heath.Backend.Repository.DoctorRepository;
 import com.Heath.Backend.Utils.ApiResponse;
 import com.Heath.Backend.Utils.EmailUtil;
+import com.Heath.Backend.Utils.GeoPoint;
 import com.Heath.Backend.Utils.JwtUtil;
+import com.Heath.Backend.Utils.SearchKeys;
 import com.Heath.Backend.Models.Role;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 
@@ -31,6 +42,20 @@ public class DoctorService {
     private final PasswordEncoder passwordEncoder;
     private final EmailUtil emailUtil;
     private final JwtUtil jwtUtil;
+    private final AvailabilityService availabilityService;
+    private final DoctorSearchIndex doctorSearchIndex;
+    private final DoctorTextIndex doctorTextIndex;
+    private final DoctorGeoIndex doctorGeoIndex;
+    private final CityGeocoder cityGeocoder;
+    private final RecommendationCache recommendationCache;
+    private final DoctorAvailabilityIndex doctorAvailabilityIndex;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int MAX_SLOT_RANGE_DAYS = 31;
+    private static final double MAX_NEARBY_RADIUS_KM = 200;
+    private static final int MAX_NEARBY_RESULTS = 1000;
+    private static final int MAX_AVAILABLE_SOON_HOURS = 72;
 
     public ApiResponse<Object> requestOtpforDoctor(Map<String , String> payload){
         String fullname = payload.get("fullname");
@@ -77,7 +102,11 @@ public class DoctorService {
         doctor.setVerified(false);
         doctor.setProfileImageUrl(profileImageUrl);
 
+        String locationError = applyLocation(doctor, payload.get("latitude"), payload.get("longitude"));
+        if (locationError != null) return ApiResponse.error(locationError);
+
         doctorRepository.save(doctor);
+        eventPublisher.publishEvent(DoctorChangedEvent.of(doctor));
 
         emailUtil.sendOtpEmail(email, otp);
 
@@ -102,6 +131,7 @@ public class DoctorService {
         doctor.setOtpCode(null);
         doctor.setOtpExpiry(null);
         doctorRepository.save(doctor);
+        eventPublisher.publishEvent(DoctorChangedEvent.of(doctor));
 
         String token = jwtUtil.generateToken(doctor.getEmail());
 
@@ -130,13 +160,18 @@ public class DoctorService {
         return ApiResponse.success("Login successful", Map.of("token", token));
     }
 
+    @Transactional(readOnly = true)
     public ApiResponse<Object> recommendByCity(String token, String city, int page, int size) {
         String email = jwtUtil.extractEmail(token);
         if (email == null) return ApiResponse.error("Invalid token");
 
+        if (doctorSearchIndex.isReady()) {
+            return searchPage("City-based recommended doctors", city, null, null, false, page, size);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
         Page<Doctor> result = doctorRepository
-                .findByCityIgnoreCaseAndVerifiedTrue(city, pageable);
+                .findByCityKeyAndVerifiedTrue(SearchKeys.normalize(city), pageable);
 
         List<Doctor> safeList = sanitizeDoctors(result.getContent());
 
@@ -147,13 +182,18 @@ public class DoctorService {
         ));
     }
 
+    @Transactional(readOnly = true)
     public ApiResponse<Object> recommendByState(String token, String state, int page, int size) {
         String email = jwtUtil.extractEmail(token);
         if (email == null) return ApiResponse.error("Invalid token");
 
+        if (doctorSearchIndex.isReady()) {
+            return searchPage("State-based recommended doctors", null, state, null, false, page, size);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
         Page<Doctor> result = doctorRepository
-                .findByStateIgnoreCaseAndVerifiedTrue(state, pageable);
+                .findByStateKeyAndVerifiedTrue(SearchKeys.normalize(state), pageable);
 
         List<Doctor> safeList = sanitizeDoctors(result.getContent());
 
@@ -164,6 +204,160 @@ public class DoctorService {
         ));
     }
 
+    public ApiResponse<Object> searchDoctors(String token, String query, String city, int page, int size) {
+        String email = jwtUtil.extractEmail(token);
+        if (email == null) return ApiResponse.error("Invalid token");
+        if (query == null || query.isBlank()) return ApiResponse.error("Search text is required");
+        if (!doctorTextIndex.isReady()) return ApiResponse.error("Search is starting up, please try again shortly");
+
+        return ApiResponse.success("Matching doctors", hitsPage(doctorTextIndex.search(query, city, page, size), page, size));
+    }
+
+    public ApiResponse<Object> recommendNearby(
+        String token,
+        double latitude,
+        double longitude,
+        double radiusKm,
+        String specialization,
+        int page,
+        int size
+    ) {
+        String email = jwtUtil.extractEmail(token);
+        if (email == null) return ApiResponse.error("Invalid token");
+
+        GeoPoint origin;
+        try {
+            origin = new GeoPoint(latitude, longitude);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        }
+        if (!(radiusKm > 0 && radiusKm <= MAX_NEARBY_RADIUS_KM)) {
+            return ApiResponse.error("radiusKm must be greater than 0 and at most " + (int) MAX_NEARBY_RADIUS_KM);
+        }
+        if (page < 0 || size < 1) return ApiResponse.error("page must not be negative and size must be positive");
+        long upTo = (long) (page + 1) * size;
+        if (upTo > MAX_NEARBY_RESULTS) return ApiResponse.error("Only the nearest " + MAX_NEARBY_RESULTS + " doctors can be paged through");
+        if (!doctorGeoIndex.isReady()) return ApiResponse.error("Search is starting up, please try again shortly");
+
+        // One extra neighbour tells whether another page exists.
+        List<DoctorGeoIndex.Nearby> nearby = doctorGeoIndex.nearest(origin, radiusKm, specialization, (int) upTo + 1);
+        List<DoctorGeoIndex.Nearby> pageHits = nearby.subList((int) Math.min((long) page * size, nearby.size()), (int) Math.min(upTo, nearby.size()));
+        Map<Long, Doctor> byId = loadDoctors(pageHits.stream().map(DoctorGeoIndex.Nearby::doctorId).toList());
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (DoctorGeoIndex.Nearby hit : pageHits) {
+            Doctor doctor = byId.get(hit.doctorId());
+            if (doctor == null) continue;
+            results.add(Map.of(
+                    "doctor", sanitizeDoctors(List.of(doctor)).get(0),
+                    "distanceKm", Math.round(hit.distanceKm() * 100) / 100.0
+            ));
+        }
+
+        return ApiResponse.success("Nearby doctors", Map.of(
+                "results", results,
+                "page", page,
+                "hasMore", nearby.size() > upTo
+        ));
+    }
+
+    public ApiResponse<Object> recommendAvailableSoon(
+        String token,
+        String city,
+        String specialization,
+        int withinHours,
+        int page,
+        int size
+    ) {
+        String email = jwtUtil.extractEmail(token);
+        if (email == null) return ApiResponse.error("Invalid token");
+
+        if (SearchKeys.normalize(city) == null && SearchKeys.normalize(specialization) == null) {
+            return ApiResponse.error("city or specialization is required");
+        }
+        if (withinHours < 1 || withinHours > MAX_AVAILABLE_SOON_HOURS) {
+            return ApiResponse.error("withinHours must be between 1 and " + MAX_AVAILABLE_SOON_HOURS);
+        }
+        if (page < 0 || size < 1) return ApiResponse.error("page must not be negative and size must be positive");
+        if (!doctorSearchIndex.isReady() || !doctorAvailabilityIndex.isReady()) {
+            return ApiResponse.error("Search is starting up, please try again shortly");
+        }
+
+        // Filter matches and next free slots both come from memory; only the page's profiles are loaded.
+        DoctorAvailabilityIndex.Openings openings = doctorAvailabilityIndex.availableBefore(
+                doctorSearchIndex.matches(city, null, specialization), LocalDateTime.now().plusHours(withinHours), page, size);
+        Map<Long, Doctor> byId = loadDoctors(openings.openings().stream().map(DoctorAvailabilityIndex.Opening::doctorId).toList());
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (DoctorAvailabilityIndex.Opening opening : openings.openings()) {
+            Doctor doctor = byId.get(opening.doctorId());
+            if (doctor == null) continue;
+            results.add(Map.of(
+                    "doctor", sanitizeDoctors(List.of(doctor)).get(0),
+                    "nextAvailableAt", opening.at()
+            ));
+        }
+
+        return ApiResponse.success("Doctors available soon", Map.of(
+                "results", results,
+                "page", page,
+                "totalPages", openings.totalPages(size)
+        ));
+    }
+
+    // Cached pages are stored as plain JSON trees, so they never hold on to entities or lazy collections.
+    private ApiResponse<Object> searchPage(String message, String city, String state, String specialization, boolean ranked,
+                                          int page, int size) {
+        Map<String, Object> data = recommendationCache.get(city, state, specialization, ranked, page, size, () -> {
+            SearchHits hits = ranked
+                    ? doctorAvailabilityIndex.rank(doctorSearchIndex.matches(city, state, specialization), page, size)
+                    : doctorSearchIndex.search(city, state, specialization, page, size);
+            Map<String, Object> loaded = hitsPage(hits, page, size);
+            return Map.of(
+                    "doctors", List.copyOf(objectMapper.convertValue(loaded.get("doctors"), List.class)),
+                    "page", page,
+                    "totalPages", loaded.get("totalPages")
+            );
+        });
+        return ApiResponse.success(message, data);
+    }
+
+    // Matches come from an in-memory index; the database only loads the profiles on this page.
+    private Map<String, Object> hitsPage(SearchHits hits, int page, int size) {
+        List<Long> ids = Arrays.stream(hits.ids()).boxed().toList();
+        Map<Long, Doctor> byId = loadDoctors(ids);
+        List<Doctor> doctors = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+
+        return Map.of(
+                "doctors", sanitizeDoctors(doctors),
+                "page", page,
+                "totalPages", hits.totalPages(size)
+        );
+    }
+
+    private Map<Long, Doctor> loadDoctors(List<Long> ids) {
+        if (ids.isEmpty()) return Map.of();
+        return doctorRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+    }
+
+    // Explicit coordinates win; otherwise the clinic is placed at its city centre, or left unplaced.
+    private String applyLocation(Doctor doctor, String latitude, String longitude) {
+        GeoPoint point;
+        if (latitude != null || longitude != null) {
+            try {
+                point = new GeoPoint(Double.parseDouble(latitude), Double.parseDouble(longitude));
+            } catch (NullPointerException | IllegalArgumentException e) {
+                return "latitude and longitude must both be valid coordinates";
+            }
+        } else {
+            point = cityGeocoder.locate(doctor.getCity(), doctor.getState());
+        }
+        doctor.setLatitude(point != null ? point.latitude() : null);
+        doctor.setLongitude(point != null ? point.longitude() : null);
+        return null;
+    }
+
     private List<Doctor> sanitizeDoctors(List<Doctor> list) {
         return list.stream().map(doc -> {
             doc.setPassword(null);
@@ -175,6 +369,7 @@ public class DoctorService {
     }
 
 
+    @Transactional(readOnly = true)
     public ApiResponse<Object> recommendDoctorAdvanced(
         String token,
         String city,
@@ -186,13 +381,19 @@ public class DoctorService {
         String email = jwtUtil.extractEmail(token);
         if (email == null) return ApiResponse.error("Invalid token");
 
+        if (doctorSearchIndex.isReady()) {
+            // Ranked by availability once the summaries are loaded; id order until then.
+            boolean ranked = doctorAvailabilityIndex.isReady();
+            return searchPage("Filtered doctor list", city, state, specialization, ranked, page, size);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
 
         Page<Doctor> result = doctorRepository
-                .findByCityIgnoreCaseAndStateIgnoreCaseAndSpecializationIgnoreCaseAndVerifiedTrue(
-                        city,
-                        state,
-                        specialization,
+                .findByCityKeyAndStateKeyAndSpecializationKeyAndVerifiedTrue(
+                        SearchKeys.normalize(city),
+                        SearchKeys.normalize(state),
+                        SearchKeys.normalize(specialization),
                         pageable
                 );
 
@@ -206,9 +407,49 @@ public class DoctorService {
     }
 
 
+    public ApiResponse<Object> getOpenSlots(Long doctorId, String fromStr, String toStr, int durationMinutes) {
+        if (durationMinutes <= 0 || durationMinutes > AvailabilityService.MAX_DURATION_MINUTES) {
+            return ApiResponse.error("duration must be between 1 and " + AvailabilityService.MAX_DURATION_MINUTES);
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = fromStr != null ? LocalDate.parse(fromStr) : today;
+            to = toStr != null ? LocalDate.parse(toStr) : from.plusDays(6);
+        } catch (Exception e) {
+            return ApiResponse.error("invalid date format, expected yyyy-MM-dd");
+        }
+        if (from.isBefore(today)) from = today;
+        if (to.isBefore(from)) return ApiResponse.error("'to' must not be before 'from'");
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_SLOT_RANGE_DAYS) {
+            return ApiResponse.error("date range must not exceed " + MAX_SLOT_RANGE_DAYS + " days");
+        }
+
+        Doctor doctor = doctorRepository.findWithWorkingDaysById(doctorId).orElse(null);
+        if (doctor == null || !Boolean.TRUE.equals(doctor.getVerified())) return ApiResponse.error("Doctor not found");
+
+        List<Map<String, Object>> days = availabilityService.findOpenSlots(doctor, from, to, durationMinutes)
+                .entrySet()
+                .stream()
+                .map(e -> Map.<String, Object>of("date", e.getKey(), "slots", e.getValue()))
+                .toList();
+
+        return ApiResponse.success("Open slots", Map.of(
+                "doctorId", doctorId,
+                "from", from,
+                "to", to,
+                "durationMinutes", durationMinutes,
+                "days", days
+        ));
+    }
+
     public ApiResponse<Object> updateDoctorProfile(String email, Map<String, String> data){
-        Doctor doctor = doctorRepository.findByEmail(email).orElse(null);
+        Doctor doctor = doctorRepository.findWithWorkingDaysByEmail(email).orElse(null);
         if (doctor == null) return ApiResponse.error("Doctor not found");
+        String previousCity = doctor.getCity();
+        String previousState = doctor.getState();
 
         data.remove("email");
         data.remove("specialization");
@@ -245,7 +486,13 @@ public class DoctorService {
             doctor.setProfileImageUrl(data.get("profileImageUrl"));
         }
 
+        if (data.containsKey("latitude") || data.containsKey("longitude") || data.containsKey("city") || data.containsKey("state")) {
+            String locationError = applyLocation(doctor, data.get("latitude"), data.get("longitude"));
+            if (locationError != null) return ApiResponse.error(locationError);
+        }
+
         doctorRepository.save(doctor);
+        eventPublisher.publishEvent(DoctorChangedEvent.of(doctor, previousCity, previousState));
 
         doctor.setPassword(null);
         doctor.setOtpCode(null);
@@ -0,0 +1,46 @@
+package com.Heath.Backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Rebuilds the doctor stats read model once at startup (it may have missed deltas that were
+ * never flushed) and then flushes accumulated deltas every {@code appointments.stats.flush-interval}.
+ */
+@Component
+@RequiredArgsConstructor
+public class DoctorStatsFlusher {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorStatsFlusher.class);
+
+    private final DoctorStatsService doctorStatsService;
+
+    // Every instance does this on start; concurrent rebuilds serialise on the stats row locks. A
+    // failed rebuild leaves the current rows in place and deltas keep flushing into them.
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        try {
+            doctorStatsService.rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Doctor stats rebuild failed, keeping the current counts: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.stats.flush-interval:PT5S}")
+    public synchronized void flush() {
+        DoctorStatsService.Deltas deltas = doctorStatsService.drain();
+        if (deltas.isEmpty()) return;
+        try {
+            doctorStatsService.apply(deltas);
+        } catch (RuntimeException e) {
+            doctorStatsService.restore(deltas);
+            log.warn("Doctor stats flush failed, will retry: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.Heath.Backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.Heath.Backend.Models.Appointment.Status;
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Models.DoctorDayStats;
+import com.Heath.Backend.Models.DoctorStats;
+import com.Heath.Backend.Repository.AppointmentArchiveRepository;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.DoctorDayCount;
+import com.Heath.Backend.Repository.DoctorDayStatsRepository;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.DoctorStatsRepository;
+import com.Heath.Backend.Repository.DoctorStatusCount;
+import com.Heath.Backend.Utils.ApiResponse;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Maintains the {@code doctor_stats} / {@code doctor_day_stats} read model. Committed appointment
+ * events only bump in-memory {@link LongAdder}s (striped, so concurrent bookings do not contend);
+ * {@link DoctorStatsFlusher} periodically drains them into relative UPDATEs. The dashboard reads
+ * two rows by primary key.
+ */
+@Service
+@RequiredArgsConstructor
+public class DoctorStatsService {
+
+    private static final int STATUSES = Status.values().length;
+    private static final Comparator<DayKey> DAY_ORDER =
+            Comparator.comparing(DayKey::doctorId).thenComparing(DayKey::day);
+
+    private final DoctorStatsRepository doctorStatsRepository;
+    private final DoctorDayStatsRepository doctorDayStatsRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentArchiveRepository appointmentArchiveRepository;
+    private final DoctorRepository doctorRepository;
+
+    // Indexed by Status.ordinal(). Entries are never removed, so no increment can land in a dropped adder.
+    private final ConcurrentHashMap<Long, LongAdder[]> statusDeltas = new ConcurrentHashMap<>();
+    // Only days from today on are tracked; past days are pruned once nothing writes to them any more.
+    private final ConcurrentHashMap<DayKey, LongAdder> dayDeltas = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.doctorId() == null || event.status() == null) return;
+
+        LongAdder[] counters = statusDeltas.computeIfAbsent(event.doctorId(), id -> newCounters());
+        if (event.previousStatus() != null) counters[event.previousStatus().ordinal()].decrement();
+        counters[event.status().ordinal()].increment();
+
+        if (event.scheduledAt() == null) return;
+        LocalDate day = event.scheduledAt().toLocalDate();
+        if (day.isBefore(LocalDate.now())) return;
+        if (event.isCreated() && event.status() != Status.CANCELLED) {
+            dayDeltas.computeIfAbsent(new DayKey(event.doctorId(), day), k -> new LongAdder()).increment();
+        } else if (!event.isCreated() && event.status() == Status.CANCELLED && event.previousStatus() != Status.CANCELLED) {
+            dayDeltas.computeIfAbsent(new DayKey(event.doctorId(), day), k -> new LongAdder()).decrement();
+        }
+    }
+
+    public ApiResponse<Object> getDoctorStats(String doctorEmail) {
+        Doctor doctor = doctorRepository.findByEmail(doctorEmail).orElse(null);
+        if (doctor == null) return ApiResponse.error("Doctor not found");
+
+        LocalDate today = LocalDate.now();
+        DoctorStats stats = doctorStatsRepository.findById(doctor.getId()).orElse(null);
+        long todayCount = doctorDayStatsRepository.findById(new DoctorDayStats.Key(doctor.getId(), today))
+                .map(DoctorDayStats::getAppointments)
+                .orElse(0L);
+
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("doctorId", doctor.getId());
+        resp.put("today", todayCount);
+        resp.put("upcoming", stats != null ? stats.getPending() : 0L);
+        resp.put("resolved", stats != null ? stats.getResolved() : 0L);
+        resp.put("cancelled", stats != null ? stats.getCancelled() : 0L);
+        resp.put("locked", stats != null ? stats.getOtpLocked() : 0L);
+        resp.put("expired", stats != null ? stats.getExpired() : 0L);
+        resp.put("updatedAt", stats != null ? stats.getUpdatedAt() : null);
+        return ApiResponse.success("Doctor stats", resp);
+    }
+
+    /**
+     * Takes everything accumulated since the last drain; pass it to {@link #apply} or back to
+     * {@link #restore}. Both maps are sorted so that {@link #apply} locks rows in doctor id order.
+     */
+    Deltas drain() {
+        Map<Long, long[]> byStatus = new TreeMap<>();
+        statusDeltas.forEach((doctorId, counters) -> {
+            long[] values = new long[STATUSES];
+            boolean any = false;
+            for (int i = 0; i < STATUSES; i++) {
+                values[i] = counters[i].sumThenReset();
+                any |= values[i] != 0;
+            }
+            if (any) byStatus.put(doctorId, values);
+        });
+
+        LocalDate today = LocalDate.now();
+        Map<DayKey, Long> byDay = new TreeMap<>(DAY_ORDER);
+        dayDeltas.forEach((key, adder) -> {
+            long value = adder.sumThenReset();
+            if (value != 0) byDay.put(key, value);
+        });
+        dayDeltas.keySet().removeIf(key -> key.day().isBefore(today.minusDays(1)));
+        return new Deltas(byStatus, byDay);
+    }
+
+    /** Puts back deltas whose flush failed so the next one retries them. */
+    void restore(Deltas deltas) {
+        deltas.byStatus().forEach((doctorId, values) -> {
+            LongAdder[] counters = statusDeltas.computeIfAbsent(doctorId, id -> newCounters());
+            for (int i = 0; i < STATUSES; i++) counters[i].add(values[i]);
+        });
+        deltas.byDay().forEach((key, value) -> dayDeltas.computeIfAbsent(key, k -> new LongAdder()).add(value));
+    }
+
+    @Transactional
+    public void apply(Deltas deltas) {
+        LocalDateTime now = LocalDateTime.now();
+        deltas.byStatus().forEach((doctorId, v) -> {
+            int updated = doctorStatsRepository.addDeltas(doctorId,
+                    v[Status.PENDING.ordinal()], v[Status.RESOLVED.ordinal()], v[Status.CANCELLED.ordinal()],
+                    v[Status.OTP_LOCKED.ordinal()], v[Status.EXPIRED.ordinal()], now);
+            if (updated == 0) doctorStatsRepository.save(overwrite(newStats(doctorId), v, now));
+        });
+        deltas.byDay().forEach((key, value) -> {
+            if (doctorDayStatsRepository.addDelta(key.doctorId(), key.day(), value) == 0) {
+                DoctorDayStats row = new DoctorDayStats();
+                row.setDoctorId(key.doctorId());
+                row.setDay(key.day());
+                row.setAppointments(value);
+                doctorDayStatsRepository.save(row);
+            }
+        });
+        doctorDayStatsRepository.deleteBefore(LocalDate.now());
+    }
+
+    /**
+     * Recomputes the read model from the appointment tables and overwrites it in place. The existing
+     * rows are locked first, so flushes and a rebuild started by another instance wait rather than
+     * interleave, and the table is never empty in between. Local deltas are drained once the locks
+     * are held, immediately before counting: what they record is already in the counts. Deltas that
+     * another instance has buffered but not yet flushed at that point are applied on top, which is
+     * at most one flush interval of changes. If the rebuild rolls back, the drained deltas are put back.
+     */
+    @Transactional
+    public void rebuild() {
+        List<DoctorStats> existing = doctorStatsRepository.findAllForUpdate();
+        List<DoctorDayStats> existingDays = doctorDayStatsRepository.findFromForUpdate(LocalDate.now());
+        Deltas dropped = drain();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) restore(dropped);
+            }
+        });
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Long, long[]> byStatus = new TreeMap<>();
+        for (DoctorStatusCount c : appointmentRepository.countByDoctorAndStatus()) {
+            byStatus.computeIfAbsent(c.doctorId(), id -> new long[STATUSES])[c.status().ordinal()] += c.count();
+        }
+        for (DoctorStatusCount c : appointmentArchiveRepository.countByDoctorAndStatus()) {
+            byStatus.computeIfAbsent(c.doctorId(), id -> new long[STATUSES])[c.status().ordinal()] += c.count();
+        }
+        Map<DayKey, Long> byDay = new TreeMap<>(DAY_ORDER);
+        for (DoctorDayCount c : appointmentRepository.countByDoctorAndDayFrom(LocalDate.now().atStartOfDay())) {
+            byDay.put(new DayKey(c.doctorId(), c.day()), c.count());
+        }
+
+        for (DoctorStats stats : existing) {
+            long[] v = byStatus.remove(stats.getDoctorId());
+            overwrite(stats, v != null ? v : new long[STATUSES], now);
+        }
+        byStatus.forEach((doctorId, v) -> doctorStatsRepository.save(overwrite(newStats(doctorId), v, now)));
+
+        for (DoctorDayStats row : existingDays) {
+            Long count = byDay.remove(new DayKey(row.getDoctorId(), row.getDay()));
+            if (count != null) row.setAppointments(count);
+            else doctorDayStatsRepository.delete(row);
+        }
+        byDay.forEach((key, count) -> {
+            DoctorDayStats row = new DoctorDayStats();
+            row.setDoctorId(key.doctorId());
+            row.setDay(key.day());
+            row.setAppointments(count);
+            doctorDayStatsRepository.save(row);
+        });
+    }
+
+    private static DoctorStats newStats(Long doctorId) {
+        DoctorStats stats = new DoctorStats();
+        stats.setDoctorId(doctorId);
+        return stats;
+    }
+
+    private static DoctorStats overwrite(DoctorStats stats, long[] v, LocalDateTime now) {
+        stats.setPending(v[Status.PENDING.ordinal()]);
+        stats.setResolved(v[Status.RESOLVED.ordinal()]);
+        stats.setCancelled(v[Status.CANCELLED.ordinal()]);
+        stats.setOtpLocked(v[Status.OTP_LOCKED.ordinal()]);
+        stats.setExpired(v[Status.EXPIRED.ordinal()]);
+        stats.setUpdatedAt(now);
+        return stats;
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[STATUSES];
+        for (int i = 0; i < STATUSES; i++) counters[i] = new LongAdder();
+        return counters;
+    }
+
+    record DayKey(Long doctorId, LocalDate day) {
+    }
+
+    record Deltas(Map<Long, long[]> byStatus, Map<DayKey, Long> byDay) {
+
+        boolean isEmpty() {
+            return byStatus.isEmpty() && byDay.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.Heath.Backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.DoctorSearchText;
+import com.Heath.Backend.Utils.SearchKeys;
+import com.Heath.Backend.Utils.SortedIntList;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Embedded full-text index over verified doctors' name, clinic name, specialization and about
+ * text. Results are ranked with BM25 over field-weighted term frequencies; every query word also
+ * matches terms it is a prefix of, and a word with no exact match falls back to terms within one
+ * edit (two for long words), so "pediatr skn" still finds pediatric skin clinics. Loaded at startup
+ * and kept current from {@link DoctorChangedEvent}s, like {@link DoctorSearchIndex}.
+ */
+@Component
+public class DoctorTextIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float NAME_WEIGHT = 3f;
+    private static final float SPECIALIZATION_WEIGHT = 3f;
+    private static final float CLINIC_WEIGHT = 2f;
+    private static final float ABOUT_WEIGHT = 1f;
+    private static final float PREFIX_BOOST = 0.8f;
+    private static final float FUZZY_BOOST = 0.6f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_QUERY_WORDS = 8;
+    private static final int MAX_EXPANSIONS = 50;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "by", "for", "from", "in", "is", "of", "on", "or", "the", "to", "with");
+
+    private final DoctorRepository doctorRepository;
+    private final Timer queryTimer;
+    private final AtomicLong documentGauge;
+    private final AtomicLong termGauge;
+    private final AtomicLong postingGauge;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TreeMap<String, SortedIntList> postings = new TreeMap<>();
+    private Map<Integer, Document> documents = new HashMap<>();
+    private double totalLength;
+    private long postingCount;
+    private volatile boolean ready;
+
+    public DoctorTextIndex(DoctorRepository doctorRepository, MeterRegistry meterRegistry) {
+        this.doctorRepository = doctorRepository;
+        this.queryTimer = meterRegistry.timer("doctors.search.text.query");
+        this.documentGauge = meterRegistry.gauge("doctors.search.text.documents", new AtomicLong());
+        this.termGauge = meterRegistry.gauge("doctors.search.text.terms", new AtomicLong());
+        this.postingGauge = meterRegistry.gauge("doctors.search.text.postings", new AtomicLong());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<DoctorSearchText> rows = doctorRepository.findVerifiedSearchText();
+            postings = new TreeMap<>();
+            documents = new HashMap<>(rows.size() * 2);
+            totalLength = 0;
+            postingCount = 0;
+            for (DoctorSearchText row : rows) {
+                add(Math.toIntExact(row.id()), row.fullname(), row.clinicName(), row.specialization(), row.about(), row.city());
+            }
+            publishSizes();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        if (event.doctorId() == null) return;
+        int id = Math.toIntExact(event.doctorId());
+        lock.writeLock().lock();
+        try {
+            remove(id);
+            if (event.verified()) {
+                add(id, event.fullname(), event.clinicName(), event.specialization(), event.about(), event.city());
+            }
+            publishSizes();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Best-first page of doctors matching any word of {@code query}, optionally only in {@code city}.
+     * Doctors matching more of the words rank ahead of those matching fewer; ties go to the lower id.
+     */
+    public SearchHits search(String query, String city, int page, int size) {
+        if (page < 0 || size < 1) throw new IllegalArgumentException("page must not be negative and size must be positive");
+        List<String> words = tokenize(query).stream().distinct().limit(MAX_QUERY_WORDS).toList();
+        if (words.isEmpty()) return SearchHits.NONE;
+        String cityKey = SearchKeys.normalize(city);
+
+        return queryTimer.record(() -> {
+            lock.readLock().lock();
+            try {
+                return rank(words, cityKey, page, size);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private SearchHits rank(List<String> words, String cityKey, int page, int size) {
+        int n = documents.size();
+        if (n == 0) return SearchHits.NONE;
+        double averageLength = totalLength / n;
+
+        Map<Integer, Score> scores = new HashMap<>();
+        for (String word : words) {
+            // A document counts once per query word, with its best-scoring expansion of that word.
+            Map<Integer, Float> best = new HashMap<>();
+            expand(word).forEach((term, boost) -> {
+                SortedIntList ids = postings.get(term);
+                double idf = Math.log(1 + (n - ids.size() + 0.5) / (ids.size() + 0.5));
+                for (int i = 0; i < ids.size(); i++) {
+                    int id = ids.get(i);
+                    Document document = documents.get(id);
+                    if (cityKey != null && !cityKey.equals(document.city())) continue;
+                    float tf = document.terms().get(term);
+                    double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * document.length() / averageLength));
+                    best.merge(id, (float) (boost * idf * norm), Math::max);
+                }
+            });
+            best.forEach((id, score) -> scores.computeIfAbsent(id, k -> new Score()).add(score));
+        }
+
+        List<Map.Entry<Integer, Score>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Comparator.<Map.Entry<Integer, Score>>comparingDouble(e -> -e.getValue().value(words.size()))
+                .thenComparing(Map.Entry::getKey));
+
+        int from = (int) Math.min((long) page * size, ranked.size());
+        int to = (int) Math.min((long) from + size, ranked.size());
+        long[] ids = new long[to - from];
+        for (int i = 0; i < ids.length; i++) ids[i] = ranked.get(from + i).getKey();
+        return new SearchHits(ranked.size(), ids);
+    }
+
+    // Indexed terms a query word stands for, with their weight: the word itself, terms it prefixes,
+    // and, only when the word is not indexed as typed, terms within a small edit distance.
+    private Map<String, Float> expand(String word) {
+        Map<String, Float> terms = new LinkedHashMap<>();
+        if (postings.containsKey(word)) terms.put(word, 1f);
+
+        if (word.length() >= MIN_PREFIX_LENGTH) {
+            NavigableMap<String, SortedIntList> completions = postings.subMap(word, false, word + Character.MAX_VALUE, false);
+            for (String term : completions.keySet()) {
+                if (terms.size() >= MAX_EXPANSIONS) break;
+                terms.put(term, PREFIX_BOOST);
+            }
+        }
+
+        if (!terms.containsKey(word) && word.length() >= MIN_FUZZY_LENGTH) {
+            int maxEdits = word.length() >= 8 ? 2 : 1;
+            for (String term : postings.keySet()) {
+                if (terms.size() >= MAX_EXPANSIONS) break;
+                if (terms.containsKey(term)) continue;
+                int edits = editDistance(word, term, maxEdits);
+                if (edits <= maxEdits) terms.put(term, FUZZY_BOOST / edits);
+            }
+        }
+        return terms;
+    }
+
+    private void add(int id, String fullname, String clinicName, String specialization, String about, String city) {
+        Map<String, Float> terms = new HashMap<>();
+        float length = count(terms, fullname, NAME_WEIGHT)
+                + count(terms, specialization, SPECIALIZATION_WEIGHT)
+                + count(terms, clinicName, CLINIC_WEIGHT)
+                + count(terms, about, ABOUT_WEIGHT);
+        if (terms.isEmpty()) return;
+
+        documents.put(id, new Document(terms, length, SearchKeys.normalize(city)));
+        totalLength += length;
+        for (String term : terms.keySet()) {
+            postings.computeIfAbsent(term, k -> new SortedIntList()).add(id);
+        }
+        postingCount += terms.size();
+    }
+
+    private void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) return;
+        totalLength -= document.length();
+        for (String term : document.terms().keySet()) {
+            SortedIntList ids = postings.get(term);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) postings.remove(term);
+        }
+        postingCount -= document.terms().size();
+    }
+
+    private void publishSizes() {
+        documentGauge.set(documents.size());
+        termGauge.set(postings.size());
+        postingGauge.set(postingCount);
+    }
+
+    private static float count(Map<String, Float> terms, String text, float weight) {
+        List<String> words = tokenize(text);
+        for (String word : words) terms.merge(word, weight, Float::sum);
+        return words.size() * weight;
+    }
+
+    static List<String> tokenize(String text) {
+        String normalized = SearchKeys.normalize(text);
+        if (normalized == null) return List.of();
+        List<String> words = new ArrayList<>();
+        for (String word : NON_WORD.split(normalized)) {
+            if (!word.isEmpty() && !STOP_WORDS.contains(word)) words.add(word);
+        }
+        return words;
+    }
+
+    /** Optimal string alignment distance (adjacent swaps count as one edit); anything above {@code max} is max + 1. */
+    static int editDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) previous[j] = j;
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) return max + 1;
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    private record Document(Map<String, Float> terms, float length, String city) {
+    }
+
+    private static final class Score {
+        private double sum;
+        private int matchedWords;
+
+        void add(float score) {
+            sum += score;
+            matchedWords++;
+        }
+
+        double value(int queryWords) {
+            return sum * matchedWords / queryWords;
+        }
+    }
+}
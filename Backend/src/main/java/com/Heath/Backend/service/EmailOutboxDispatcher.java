@@ -0,0 +1,120 @@
+package com.Heath.Backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.Heath.Backend.Models.EmailOutbox;
+import com.Heath.Backend.Utils.EmailUtil;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Drains the email outbox. Each poll claims a batch, splits it into chunks that are each sent
+ * over one SMTP connection on their own virtual thread, and records the outcome per row.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxService emailOutboxService;
+    private final EmailUtil emailUtil;
+    private final int batchSize;
+    private final int messagesPerConnection;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public EmailOutboxDispatcher(
+            EmailOutboxService emailOutboxService,
+            EmailUtil emailUtil,
+            @Value("${mail.outbox.batch-size:100}") int batchSize,
+            @Value("${mail.outbox.messages-per-connection:20}") int messagesPerConnection
+    ) {
+        this.emailOutboxService = emailOutboxService;
+        this.emailUtil = emailUtil;
+        this.batchSize = batchSize;
+        this.messagesPerConnection = messagesPerConnection;
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:PT2S}")
+    public void dispatch() {
+        List<EmailOutbox> batch;
+        do {
+            batch = emailOutboxService.claimDue(batchSize);
+            if (!batch.isEmpty()) send(batch);
+        } while (batch.size() == batchSize);
+    }
+
+    private void send(List<EmailOutbox> batch) {
+        List<List<EmailOutbox>> chunks = new ArrayList<>();
+        List<Future<Map<Long, String>>> results = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += messagesPerConnection) {
+            List<EmailOutbox> chunk = batch.subList(from, Math.min(from + messagesPerConnection, batch.size()));
+            chunks.add(chunk);
+            results.add(senders.submit(() -> sendChunk(chunk)));
+        }
+
+        List<Long> sent = new ArrayList<>();
+        Map<Long, String> failures = new HashMap<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            Map<Long, String> chunkFailures;
+            try {
+                chunkFailures = results.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                chunkFailures = new HashMap<>();
+                for (EmailOutbox row : chunks.get(i)) chunkFailures.put(row.getId(), String.valueOf(e.getCause()));
+            }
+            for (EmailOutbox row : chunks.get(i)) {
+                String error = chunkFailures.get(row.getId());
+                if (error != null) {
+                    failures.put(row.getId(), error);
+                } else {
+                    sent.add(row.getId());
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            log.warn("Email outbox: {} of {} messages failed, will retry", failures.size(), batch.size());
+        }
+        emailOutboxService.recordResults(sent, failures);
+    }
+
+    private Map<Long, String> sendChunk(List<EmailOutbox> chunk) {
+        Map<SimpleMailMessage, Long> ids = new IdentityHashMap<>();
+        List<SimpleMailMessage> messages = new ArrayList<>(chunk.size());
+        for (EmailOutbox row : chunk) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(row.getRecipient());
+            message.setSubject(row.getSubject());
+            message.setText(row.getBody());
+            messages.add(message);
+            ids.put(message, row.getId());
+        }
+
+        Map<Long, String> failures = new HashMap<>();
+        emailUtil.sendBatch(messages).forEach((message, error) -> failures.put(ids.get(message), String.valueOf(error.getMessage())));
+        return failures;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+package com.Heath.Backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.Heath.Backend.Models.EmailOutbox;
+import com.Heath.Backend.Repository.EmailOutboxRepository;
+
+/**
+ * Transactional outbox for outgoing mail. Callers enqueue inside their own transaction, so the
+ * message is stored atomically with the change it announces; {@link EmailOutboxDispatcher}
+ * delivers it later.
+ */
+@Service
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final Duration claimLease;
+    private final Duration retryBaseDelay;
+    private final Duration retryMaxDelay;
+    private final int maxAttempts;
+
+    public EmailOutboxService(
+            EmailOutboxRepository emailOutboxRepository,
+            @Value("${mail.outbox.claim-lease:PT5M}") Duration claimLease,
+            @Value("${mail.outbox.retry-base-delay:PT30S}") Duration retryBaseDelay,
+            @Value("${mail.outbox.retry-max-delay:PT1H}") Duration retryMaxDelay,
+            @Value("${mail.outbox.max-attempts:8}") int maxAttempts
+    ) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.claimLease = claimLease;
+        this.retryBaseDelay = retryBaseDelay;
+        this.retryMaxDelay = retryMaxDelay;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Transactional
+    public void enqueue(String to, String subject, String body) {
+        EmailOutbox row = new EmailOutbox();
+        row.setRecipient(to);
+        row.setSubject(subject);
+        row.setBody(body);
+        emailOutboxRepository.save(row);
+    }
+
+    /**
+     * Locks up to {@code limit} due rows and pushes their next attempt past the claim lease, so
+     * neither another dispatcher nor the next poll picks them up while they are being sent.
+     * If the process dies mid-send the rows become due again once the lease runs out.
+     */
+    @Transactional
+    public List<EmailOutbox> claimDue(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> due = emailOutboxRepository.findDueForUpdate(now, PageRequest.of(0, limit));
+        LocalDateTime leaseUntil = now.plus(claimLease);
+        due.forEach(row -> row.setNextAttemptAt(leaseUntil));
+        return due;
+    }
+
+    @Transactional
+    public void recordResults(Collection<Long> sentIds, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!sentIds.isEmpty()) {
+            emailOutboxRepository.markSent(sentIds, now);
+        }
+
+        for (EmailOutbox row : emailOutboxRepository.findAllById(failures.keySet())) {
+            int attempts = row.getAttempts() + 1;
+            row.setAttempts(attempts);
+            row.setLastError(truncate(failures.get(row.getId()), 1000));
+            if (attempts >= maxAttempts) {
+                // Like a sent row, a failed one keeps no body: it can hold a plaintext appointment OTP.
+                row.setStatus(EmailOutbox.Status.FAILED);
+                row.setBody(null);
+            } else {
+                row.setNextAttemptAt(now.plus(backoff(attempts)));
+            }
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = retryBaseDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(retryMaxDelay) > 0 ? retryMaxDelay : delay;
+    }
+
+    private String truncate(String s, int max) {
+        if (s == null) return null;
+        return s.length() <= max ? s : s.substring(0, max);
+    }
+}
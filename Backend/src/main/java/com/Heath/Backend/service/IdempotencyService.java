@@ -0,0 +1,197 @@
+package com.Heath.Backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.Heath.Backend.Models.IdempotencyRecord;
+import com.Heath.Backend.Repository.IdempotencyRecordRepository;
+import com.Heath.Backend.Utils.ApiResponse;
+import com.Heath.Backend.Utils.BoundedCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Replays the recorded response when a client retries a request with the same
+ * {@code Idempotency-Key}. The first attempt claims the key in its own short transaction, then
+ * runs the action and records its response in one transaction, so a booking and its recorded
+ * response commit (or roll back) together. Completed responses are also kept in a bounded TTL
+ * cache so hot retries never reach the database.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final String IN_PROGRESS = "A request with this Idempotency-Key is still being processed";
+    private static final String MISMATCH = "Idempotency-Key was already used for a different request";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate newTransaction;
+    private final Duration ttl;
+    private final Duration lease;
+    private final BoundedCache<CacheKey, Stored> completed;
+
+    public IdempotencyService(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${appointments.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${appointments.idempotency.lease:PT1M}") Duration lease,
+            @Value("${appointments.idempotency.cache-max-entries:10000}") int cacheMaxEntries
+    ) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+        this.lease = lease;
+        this.completed = new BoundedCache<>(cacheMaxEntries, ttl);
+    }
+
+    /** SHA-256 over the parts that identify a request; a reused key must come with the same fingerprint. */
+    public static String fingerprint(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Runs {@code action} once per (owner, key); repeats get the first response back. Without a key it just runs. */
+    public ApiResponse<Object> execute(String owner, String key, String fingerprint, Supplier<ApiResponse<Object>> action) {
+        if (key == null || key.isBlank()) return action.get();
+        if (key.length() > MAX_KEY_LENGTH) return ApiResponse.error(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+
+        CacheKey cacheKey = new CacheKey(owner, key);
+        Stored cached = completed.get(cacheKey);
+        // The cache TTL runs from completion, but the key lapses at the row's expiry.
+        if (cached != null && cached.expiresAt().isAfter(LocalDateTime.now())) return replay(cached, fingerprint);
+        if (cached != null) completed.remove(cacheKey);
+
+        Claim claim;
+        try {
+            claim = newTransaction.execute(status -> claim(owner, key, fingerprint));
+        } catch (DataIntegrityViolationException e) {
+            // Another attempt inserted the same key first.
+            return ApiResponse.error(IN_PROGRESS);
+        }
+        if (claim.error() != null) return ApiResponse.error(claim.error());
+        if (claim.stored() != null) {
+            completed.put(cacheKey, claim.stored());
+            return replay(claim.stored(), fingerprint);
+        }
+
+        Result result;
+        try {
+            result = transaction.execute(status -> {
+                ApiResponse<Object> response = action.get();
+                IdempotencyRecord row = idempotencyRecordRepository.findById(claim.rowId()).orElseThrow();
+                row.setStatus(IdempotencyRecord.Status.COMPLETED);
+                row.setResponseStatus(response.getStatus());
+                row.setResponseMessage(response.getMessage());
+                row.setResponseData(toJson(response.getData()));
+                row.setLockedUntil(null);
+                idempotencyRecordRepository.save(row);
+                return new Result(response, stored(row));
+            });
+        } catch (RuntimeException e) {
+            newTransaction.executeWithoutResult(status -> idempotencyRecordRepository.deleteById(claim.rowId()));
+            throw e;
+        }
+        completed.put(cacheKey, result.stored());
+        return result.response();
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private Claim claim(String owner, String key, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord row = idempotencyRecordRepository.findByOwnerAndIdemKey(owner, key).orElse(null);
+        if (row != null && row.getExpiresAt().isBefore(now)) {
+            idempotencyRecordRepository.delete(row);
+            idempotencyRecordRepository.flush();
+            row = null;
+        }
+
+        if (row == null) {
+            row = new IdempotencyRecord();
+            row.setOwner(owner);
+            row.setIdemKey(key);
+            row.setFingerprint(fingerprint);
+            row.setCreatedAt(now);
+            row.setExpiresAt(now.plus(ttl));
+            row.setLockedUntil(now.plus(lease));
+            idempotencyRecordRepository.saveAndFlush(row);
+            return new Claim(row.getId(), null, null);
+        }
+
+        if (!row.getFingerprint().equals(fingerprint)) return new Claim(null, null, MISMATCH);
+        if (row.getStatus() == IdempotencyRecord.Status.COMPLETED) return new Claim(null, stored(row), null);
+        if (row.getLockedUntil() != null && row.getLockedUntil().isAfter(now)) return new Claim(null, null, IN_PROGRESS);
+
+        // The earlier attempt's lease ran out without a commit, so nothing was booked: take it over.
+        row.setLockedUntil(now.plus(lease));
+        return new Claim(row.getId(), null, null);
+    }
+
+    private ApiResponse<Object> replay(Stored stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) return ApiResponse.error(MISMATCH);
+        try {
+            Object data = stored.data() != null ? objectMapper.readValue(stored.data(), Object.class) : null;
+            return new ApiResponse<>(stored.status(), stored.message(), data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is not valid JSON", e);
+        }
+    }
+
+    private String toJson(Object data) {
+        if (data == null) return null;
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored for idempotent replay", e);
+        }
+    }
+
+    private static Stored stored(IdempotencyRecord row) {
+        return new Stored(row.getFingerprint(), row.getResponseStatus(), row.getResponseMessage(), row.getResponseData(),
+                row.getExpiresAt());
+    }
+
+    private record CacheKey(String owner, String key) {
+    }
+
+    private record Stored(String fingerprint, String status, String message, String data, LocalDateTime expiresAt) {
+    }
+
+    private record Claim(Long rowId, Stored stored, String error) {
+    }
+
+    private record Result(ApiResponse<Object> response, Stored stored) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.Heath.Backend.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.Heath.Backend.Utils.BoundedCache;
+import com.Heath.Backend.Utils.SearchKeys;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded, TTL-limited cache of recommendation pages keyed on the normalised city, state and
+ * specialization filter plus page, size and whether the page is availability-ranked. A committed
+ * {@link DoctorChangedEvent} drops exactly the pages whose filter the doctor matched before or after the
+ * change, so other cities keep their hits. Ranked pages also depend on availability, which moves
+ * with every booking: each carries the version of its filter it was computed at, and
+ * {@link DoctorAvailabilityIndex} retires them by bumping the versions of the filters a doctor
+ * matches, without touching unranked pages or scanning the cache.
+ */
+@Component
+public class RecommendationCache {
+
+    private final BoundedCache<Key, Cached> pages;
+    private final Counter hits;
+    private final Counter misses;
+
+    // Bumped on every doctor change so a page computed while a doctor changed is not cached.
+    private final AtomicLong changeVersion = new AtomicLong();
+    // Ranked pages are valid while both their filter's version and the epoch are unchanged.
+    private final ConcurrentHashMap<Filter, Long> rankedVersions = new ConcurrentHashMap<>();
+    private final AtomicLong rankedEpoch = new AtomicLong();
+
+    public RecommendationCache(
+            MeterRegistry meterRegistry,
+            @Value("${doctors.recommend-cache.max-entries:5000}") int maxEntries,
+            @Value("${doctors.recommend-cache.ttl:PT5M}") Duration ttl
+    ) {
+        this.pages = new BoundedCache<>(maxEntries, ttl);
+        this.hits = meterRegistry.counter("doctors.recommend.cache", "result", "hit");
+        this.misses = meterRegistry.counter("doctors.recommend.cache", "result", "miss");
+        FunctionCounter.builder("doctors.recommend.cache.evictions", pages, BoundedCache::evictions).register(meterRegistry);
+        Gauge.builder("doctors.recommend.cache.size", pages, BoundedCache::size).register(meterRegistry);
+    }
+
+    /** The cached page for this filter, or the loader's result, cached unless a doctor changed meanwhile. */
+    public Map<String, Object> get(String city, String state, String specialization, boolean ranked, int page, int size,
+                                   Supplier<Map<String, Object>> loader) {
+        Filter filter = new Filter(SearchKeys.normalize(city), SearchKeys.normalize(state), SearchKeys.normalize(specialization));
+        Key key = new Key(filter, ranked, page, size);
+        // Read before loading, so a page computed while its filter was bumped is stamped with the
+        // older version and missed on its next read.
+        long epoch = ranked ? rankedEpoch.get() : 0;
+        long version = ranked ? rankedVersions.getOrDefault(filter, 0L) : 0;
+        Cached cached = pages.get(key);
+        if (cached != null && cached.epoch() == epoch && cached.version() == version) {
+            hits.increment();
+            return cached.page();
+        }
+        misses.increment();
+
+        long versionBefore = changeVersion.get();
+        Map<String, Object> loaded = loader.get();
+        pages.putIf(key, new Cached(loaded, epoch, version), () -> changeVersion.get() == versionBefore);
+        return loaded;
+    }
+
+    // Ordered after DoctorSearchIndex, so a page computed from the old index always sees the bump.
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        changeVersion.incrementAndGet();
+        Set<String> cities = keys(event.city(), event.previousCity());
+        Set<String> states = keys(event.state(), event.previousState());
+        String specialization = SearchKeys.normalize(event.specialization());
+        pages.removeIf(key -> key.filter().matches(cities, states, specialization));
+    }
+
+    /**
+     * Retires the ranked pages whose filter matches a doctor with these (normalised) keys: the
+     * filter with each part either the doctor's value or unset, eight at most.
+     */
+    public void evictRanked(String cityKey, String stateKey, String specializationKey) {
+        for (String city : parts(cityKey)) {
+            for (String state : parts(stateKey)) {
+                for (String specialization : parts(specializationKey)) {
+                    rankedVersions.merge(new Filter(city, state, specialization), 1L, Long::sum);
+                }
+            }
+        }
+    }
+
+    /** Retires every ranked page, for when most doctors' availability may have moved at once. */
+    public void clearRanked() {
+        rankedEpoch.incrementAndGet();
+    }
+
+    private static List<String> parts(String key) {
+        return key != null ? Arrays.asList(key, null) : Collections.singletonList(null);
+    }
+
+    private static Set<String> keys(String current, String previous) {
+        Set<String> keys = new HashSet<>(2);
+        String currentKey = SearchKeys.normalize(current);
+        String previousKey = SearchKeys.normalize(previous);
+        if (currentKey != null) keys.add(currentKey);
+        if (previousKey != null) keys.add(previousKey);
+        return keys;
+    }
+
+    private record Filter(String city, String state, String specialization) {
+
+        // A null part of the filter was not searched on, so any doctor satisfies it.
+        boolean matches(Set<String> cities, Set<String> states, String doctorSpecialization) {
+            return (city == null || cities.contains(city))
+                    && (state == null || states.contains(state))
+                    && (specialization == null || specialization.equals(doctorSpecialization));
+        }
+    }
+
+    private record Key(Filter filter, boolean ranked, int page, int size) {
+    }
+
+    private record Cached(Map<String, Object> page, long epoch, long version) {
+    }
+}
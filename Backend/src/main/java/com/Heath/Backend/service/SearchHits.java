@@ -0,0 +1,15 @@
+package com.Heath.Backend.service;
+
+/** One page of matching doctor ids, in result order, plus the total number of matches. */
+public record SearchHits(int total, long[] ids) {
+
+    public static final SearchHits NONE = new SearchHits(0, new long[0]);
+
+    public int totalPages(int size) {
+        return totalPages(total, size);
+    }
+
+    static int totalPages(int total, int size) {
+        return size <= 0 ? 0 : (total + size - 1) / size;
+    }
+}
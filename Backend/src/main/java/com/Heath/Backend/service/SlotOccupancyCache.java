@@ -0,0 +1,266 @@
+package com.Heath.Backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.BookedInterval;
+import com.Heath.Backend.Utils.BoundedCache;
+
+/**
+ * Per-doctor, per-day occupancy of the clinic day. Each day keeps an interval index of PENDING
+ * appointments (start minute to end minute) for O(log n) overlap checks, and a {@code long[]}
+ * bitset with one bit per occupied minute between {@code clinicOpenTime} and
+ * {@code clinicCloseTime}. Days are loaded with one range query on first use and then kept
+ * current from this instance's bookings and committed {@link AppointmentChangedEvent}s.
+ *
+ * <p>Bookings hold the doctor's row lock while they check and insert, and bump
+ * {@code Doctor.bookingVersion}. A doctor's cached days are only used while the version they were
+ * kept current through matches the one the booking read under that lock, so a booking made on
+ * another instance invalidates them. That makes a cached "free" authoritative. A cached "taken" is
+ * confirmed against the database, because a release committed on another instance is not seen here.
+ */
+@Component
+public class SlotOccupancyCache {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final AppointmentRepository appointmentRepository;
+    private final AvailabilityService availabilityService;
+    private final BoundedCache<DayKey, DayOccupancy> days;
+    private final ConcurrentHashMap<Long, Generation> generations = new ConcurrentHashMap<>();
+
+    public SlotOccupancyCache(
+            AppointmentRepository appointmentRepository,
+            AvailabilityService availabilityService,
+            @Value("${appointments.slot-cache.max-entries:10000}") int maxEntries
+    ) {
+        this.appointmentRepository = appointmentRepository;
+        this.availabilityService = availabilityService;
+        this.days = new BoundedCache<>(maxEntries);
+    }
+
+    /**
+     * True when a PENDING appointment of this doctor overlaps [start, start + durationMinutes). The
+     * caller holds the doctor's row lock and passes the doctor it read under that lock.
+     */
+    public boolean overlaps(Doctor doctor, LocalDateTime start, int durationMinutes) {
+        LocalDateTime end = start.plusMinutes(durationMinutes);
+        LocalTime open = doctor.getClinicOpenTime();
+        LocalTime close = doctor.getClinicCloseTime();
+        if (open == null || close == null || !open.isBefore(close)
+                || start.toLocalTime().isBefore(open) || end.isAfter(LocalDateTime.of(start.toLocalDate(), close))) {
+            return availabilityService.hasOverlappingPending(doctor.getId(), start, durationMinutes);
+        }
+
+        DayKey key = new DayKey(doctor.getId(), start.toLocalDate());
+        if (!day(key, generation(doctor), open, close).overlaps(startMinute(start), endMinute(end))) return false;
+        if (availabilityService.hasOverlappingPending(doctor.getId(), start, durationMinutes)) return true;
+        days.remove(key);
+        return false;
+    }
+
+    /**
+     * Records a booking the current transaction made after bumping the doctor's bookingVersion, with
+     * the bumped doctor. It is applied to the cached day once the transaction commits.
+     */
+    public void recordBooking(Doctor doctor, LocalDateTime start, int durationMinutes) {
+        Long doctorId = doctor.getId();
+        long version = bookingVersion(doctor);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyBooking(doctorId, version, start, durationMinutes);
+            }
+        });
+    }
+
+    // Bookings are applied by recordBooking, which knows the version they moved the doctor to.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.doctorId() == null || event.scheduledAt() == null || !event.releasedSlot()) return;
+
+        DayKey key = new DayKey(event.doctorId(), event.scheduledAt().toLocalDate());
+        int start = startMinute(event.scheduledAt());
+        int end = endMinute(event.scheduledAt().plusMinutes(event.durationMinutes() != null ? event.durationMinutes() : 0));
+        Generation generation = generations.computeIfAbsent(event.doctorId(), id -> new Generation());
+        synchronized (generation) {
+            generation.changes++;
+            DayOccupancy day = days.get(key);
+            if (day != null && !day.remove(start, end)) days.remove(key);
+        }
+    }
+
+    // Runs under the doctor's row lock, so no booking for this doctor commits while it decides.
+    private long generation(Doctor doctor) {
+        long version = bookingVersion(doctor);
+        Generation generation = generations.computeIfAbsent(doctor.getId(), id -> new Generation());
+        synchronized (generation) {
+            if (generation.bookingVersion != version) {
+                generation.bookingVersion = version;
+                generation.number++;
+            }
+            return generation.number;
+        }
+    }
+
+    private void applyBooking(Long doctorId, long version, LocalDateTime start, int durationMinutes) {
+        Generation generation = generations.get(doctorId);
+        if (generation == null) return;
+        synchronized (generation) {
+            generation.changes++;
+            // Only the next version extends the days in place; after a gap the next booking reloads them.
+            if (generation.bookingVersion != version - 1) return;
+            generation.bookingVersion = version;
+            DayOccupancy day = days.get(new DayKey(doctorId, start.toLocalDate()));
+            if (day != null && day.generation == generation.number) {
+                day.add(startMinute(start), endMinute(start.plusMinutes(durationMinutes)));
+            }
+        }
+    }
+
+    private DayOccupancy day(DayKey key, long number, LocalTime open, LocalTime close) {
+        DayOccupancy cached = days.get(key);
+        if (cached != null && cached.generation == number && cached.covers(open, close)) return cached;
+
+        Generation generation = generations.get(key.doctorId());
+        long changesBefore;
+        synchronized (generation) {
+            changesBefore = generation.changes;
+        }
+        LocalDateTime dayStart = key.date().atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        List<BookedInterval> booked = appointmentRepository.findPendingIntervalsBetween(
+                key.doctorId(), dayStart.minusMinutes(availabilityService.lookbackMinutes()), dayEnd);
+
+        DayOccupancy loaded = new DayOccupancy(open, close, number);
+        for (BookedInterval b : booked) {
+            if (!b.end().isAfter(dayStart)) continue;
+            // Clipped to the day: a legacy row can start the evening before.
+            loaded.add(b.scheduledAt().isBefore(dayStart) ? 0 : startMinute(b.scheduledAt()),
+                    b.end().isBefore(dayEnd) ? endMinute(b.end()) : MINUTES_PER_DAY);
+        }
+
+        // Checked and stored under the same monitor that applies changes, so a change committed
+        // while the query ran either lands before this check (and the load is dropped) or after the
+        // put (and updates the stored day).
+        synchronized (generation) {
+            if (generation.changes == changesBefore && generation.number == number) days.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private static long bookingVersion(Doctor doctor) {
+        return doctor.getBookingVersion() != null ? doctor.getBookingVersion() : 0L;
+    }
+
+    private static int startMinute(LocalDateTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+
+    private static int endMinute(LocalDateTime t) {
+        int minute = t.getHour() * 60 + t.getMinute();
+        return t.getSecond() != 0 || t.getNano() != 0 ? minute + 1 : minute;
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    /**
+     * The bookingVersion a doctor's cached days are current through. Days loaded under an older
+     * generation number are ignored. {@code changes} counts changes applied to the doctor's days,
+     * so a load can tell whether one raced it. Every change to those days, and every store into
+     * them, happens under this object's monitor.
+     */
+    private static final class Generation {
+        long bookingVersion = -1;
+        long number;
+        long changes;
+    }
+
+    /**
+     * Minutes are minute-of-day. New bookings are never allowed to overlap, so the intervals are
+     * normally disjoint and a single floor lookup answers an overlap query. Days loaded with
+     * legacy overlapping rows answer from the bitset instead and are reloaded on release.
+     */
+    static final class DayOccupancy {
+        private final LocalTime open;
+        private final LocalTime close;
+        private final int openMinute;
+        private final int slots;
+        private final long[] bits;
+        private final long generation;
+        private final TreeMap<Integer, Integer> intervals = new TreeMap<>();
+        private boolean disjoint = true;
+
+        DayOccupancy(LocalTime open, LocalTime close, long generation) {
+            this.generation = generation;
+            this.open = open;
+            this.close = close;
+            this.openMinute = open.getHour() * 60 + open.getMinute();
+            this.slots = close.getHour() * 60 + close.getMinute() - openMinute;
+            this.bits = new long[(slots + 63) >>> 6];
+        }
+
+        boolean covers(LocalTime open, LocalTime close) {
+            return this.open.equals(open) && this.close.equals(close);
+        }
+
+        synchronized boolean overlaps(int start, int end) {
+            if (!disjoint) return anyBitSet(start, end);
+            Map.Entry<Integer, Integer> floor = intervals.lowerEntry(end);
+            return floor != null && floor.getValue() > start;
+        }
+
+        synchronized void add(int start, int end) {
+            if (end <= start) return;
+            if (overlaps(start, end)) disjoint = false;
+            intervals.merge(start, end, Math::max);
+            setBits(start, end, true);
+        }
+
+        /** Returns false when the day can no longer be maintained in place and must be reloaded. */
+        synchronized boolean remove(int start, int end) {
+            if (!disjoint) return false;
+            Integer storedEnd = intervals.get(start);
+            if (storedEnd == null || storedEnd != end) return false;
+            intervals.remove(start);
+            setBits(start, end, false);
+            return true;
+        }
+
+        private boolean anyBitSet(int start, int end) {
+            int from = Math.max(0, start - openMinute);
+            int to = Math.min(slots, end - openMinute);
+            for (int slot = from; slot < to; slot++) {
+                if ((bits[slot >>> 6] & (1L << slot)) != 0) return true;
+            }
+            return false;
+        }
+
+        private void setBits(int start, int end, boolean value) {
+            int from = Math.max(0, start - openMinute);
+            int to = Math.min(slots, end - openMinute);
+            for (int slot = from; slot < to; slot++) {
+                if (value) {
+                    bits[slot >>> 6] |= 1L << slot;
+                } else {
+                    bits[slot >>> 6] &= ~(1L << slot);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.Heath.Backend.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.Heath.Backend.Models.Appointment;
+import com.Heath.Backend.Models.Appointment.Status;
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Models.User;
+import com.Heath.Backend.Models.WaitlistEntry;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.UserRepository;
+import com.Heath.Backend.Repository.WaitlistEntryRepository;
+import com.Heath.Backend.Utils.ApiResponse;
+
+/**
+ * Per-doctor, per-day waitlists, kept only in {@code waitlist_entries} so every instance sees the
+ * same line. When a booked slot is cancelled, the earliest-joined WAITING patient whose request
+ * fits the slot gets a hold on it for {@code appointments.waitlist.hold}, claimed with a single
+ * conditional UPDATE; when two instances offer at once, the loser moves on to the next row.
+ * Bookings skip held slots, and a hold that is not accepted in time is passed on to the next
+ * patient by {@link WaitlistSweeper}.
+ */
+@Service
+public class WaitlistService {
+
+    private static final List<WaitlistEntry.Status> ACTIVE = List.of(WaitlistEntry.Status.WAITING, WaitlistEntry.Status.OFFERED);
+    private static final int OFFER_BATCH = 20;
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final DoctorRepository doctorRepository;
+    private final UserRepository userRepository;
+    private final AppointmentService appointmentService;
+    private final AvailabilityService availabilityService;
+    private final EmailOutboxService emailOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration hold;
+
+    public WaitlistService(
+            WaitlistEntryRepository waitlistEntryRepository,
+            DoctorRepository doctorRepository,
+            UserRepository userRepository,
+            AppointmentService appointmentService,
+            AvailabilityService availabilityService,
+            EmailOutboxService emailOutboxService,
+            PlatformTransactionManager transactionManager,
+            @Value("${appointments.waitlist.hold:PT15M}") Duration hold
+    ) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.doctorRepository = doctorRepository;
+        this.userRepository = userRepository;
+        this.appointmentService = appointmentService;
+        this.availabilityService = availabilityService;
+        this.emailOutboxService = emailOutboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hold = hold;
+    }
+
+    public ApiResponse<Object> join(String patientEmail, Map<String, String> payload) {
+        User patient = userRepository.findByEmail(patientEmail).orElse(null);
+        if (patient == null) return ApiResponse.error("Patient not found");
+
+        Long doctorId;
+        try {
+            doctorId = Long.parseLong(payload.getOrDefault("doctorId", ""));
+        } catch (NumberFormatException e) {
+            return ApiResponse.error("doctorId is required");
+        }
+        if (doctorRepository.findById(doctorId).isEmpty()) return ApiResponse.error("Doctor not found");
+
+        LocalDate day;
+        LocalTime earliest;
+        LocalTime latest;
+        int duration;
+        try {
+            day = LocalDate.parse(payload.getOrDefault("date", ""));
+            earliest = payload.get("earliest") != null ? LocalTime.parse(payload.get("earliest")) : null;
+            latest = payload.get("latest") != null ? LocalTime.parse(payload.get("latest")) : null;
+            duration = payload.get("durationMinutes") != null ? Integer.parseInt(payload.get("durationMinutes")) : 30;
+        } catch (RuntimeException e) {
+            return ApiResponse.error("invalid date (yyyy-MM-dd), earliest/latest (HH:mm) or durationMinutes");
+        }
+        if (day.isBefore(LocalDate.now())) return ApiResponse.error("Selected date is in the past");
+        if (duration <= 0 || duration > AvailabilityService.MAX_DURATION_MINUTES) {
+            return ApiResponse.error("durationMinutes must be between 1 and " + AvailabilityService.MAX_DURATION_MINUTES);
+        }
+        if (waitlistEntryRepository.existsByDoctorIdAndPatientIdAndWaitDayAndStatusIn(doctorId, patient.getId(), day, ACTIVE)) {
+            return ApiResponse.error("Already on this doctor's waitlist for that day");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setDoctorId(doctorId);
+        entry.setPatientId(patient.getId());
+        entry.setWaitDay(day);
+        entry.setDurationMinutes(duration);
+        entry.setEarliest(earliest);
+        entry.setLatest(latest);
+        entry.setMessage(payload.get("message"));
+        WaitlistEntry saved = waitlistEntryRepository.save(entry);
+
+        return ApiResponse.success("Added to waitlist", Map.of("entry", saved));
+    }
+
+    public ApiResponse<Object> getPatientEntries(String patientEmail) {
+        User patient = userRepository.findByEmail(patientEmail).orElse(null);
+        if (patient == null) return ApiResponse.error("Patient not found");
+        return ApiResponse.success("Waitlist entries",
+                Map.of("entries", waitlistEntryRepository.findByPatientIdAndStatusInOrderByWaitDayAsc(patient.getId(), ACTIVE)));
+    }
+
+    /** Books the held slot through the normal booking path; the hold and the booking commit or roll back together. */
+    public ApiResponse<Object> accept(String patientEmail, Long entryId) {
+        User patient = userRepository.findByEmail(patientEmail).orElse(null);
+        if (patient == null) return ApiResponse.error("Patient not found");
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId).orElse(null);
+        if (entry == null || !entry.getPatientId().equals(patient.getId())) return ApiResponse.error("Waitlist entry not found");
+
+        boolean[] bookingFailed = {false};
+        ApiResponse<Object> result = transactionTemplate.execute(status -> {
+            if (waitlistEntryRepository.accept(entryId, patient.getId(), LocalDateTime.now()) == 0) {
+                return ApiResponse.error("No open offer for this waitlist entry");
+            }
+            // Re-read after the claim: the offer may have changed since the entry was loaded above.
+            WaitlistEntry offered = waitlistEntryRepository.findById(entryId).orElseThrow();
+            Map<String, String> booking = new HashMap<>();
+            booking.put("doctorId", String.valueOf(offered.getDoctorId()));
+            booking.put("date", offered.getOfferAt().toLocalDate().toString());
+            booking.put("time", offered.getOfferAt().toLocalTime().toString());
+            booking.put("durationMinutes", String.valueOf(offered.getDurationMinutes()));
+            booking.put("message", offered.getMessage());
+            ApiResponse<Object> response = appointmentService.createAppointment(patientEmail, booking);
+            if (!"success".equals(response.getStatus())) {
+                status.setRollbackOnly();
+                bookingFailed[0] = true;
+                return response;
+            }
+            if (response.getData() instanceof Map<?, ?> data && data.get("appointment") instanceof Appointment booked) {
+                offered.setAppointmentId(booked.getId());
+                waitlistEntryRepository.save(offered);
+            }
+            return response;
+        });
+
+        // The slot went to a direct booking after all. Back to WAITING keeps the patient's place in
+        // line, which is ordered by join time.
+        if (bookingFailed[0]) waitlistEntryRepository.release(entryId, LocalDateTime.now());
+        return result;
+    }
+
+    /** Leaves the line; a declined hold goes to the next patient in the same transaction as the leave. */
+    public ApiResponse<Object> leave(String patientEmail, Long entryId) {
+        User patient = userRepository.findByEmail(patientEmail).orElse(null);
+        if (patient == null) return ApiResponse.error("Patient not found");
+
+        return transactionTemplate.execute(status -> {
+            WaitlistEntry entry = waitlistEntryRepository.findByIdForUpdate(entryId).orElse(null);
+            if (entry == null || !entry.getPatientId().equals(patient.getId())) return ApiResponse.error("Waitlist entry not found");
+
+            if (waitlistEntryRepository.leave(entryId, patient.getId(), LocalDateTime.now()) == 0) {
+                return ApiResponse.error("Waitlist entry is no longer active");
+            }
+            // If the re-offer fails, the leave rolls back with it and the hold stays with this
+            // patient until the sweeper passes it on, instead of being lost.
+            if (entry.getStatus() == WaitlistEntry.Status.OFFERED) {
+                offer(entry.getDoctorId(), entry.getOfferAt(), minutesBetween(entry.getOfferAt(), entry.getOfferEndsAt()));
+            }
+            return ApiResponse.success("Left waitlist", Map.of("entryId", entryId));
+        });
+    }
+
+    // AFTER_COMMIT listeners still see the finished transaction, so the offer needs its own.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.previousStatus() != Status.PENDING || event.status() != Status.CANCELLED) return;
+        if (event.doctorId() == null || event.scheduledAt() == null) return;
+        offer(event.doctorId(), event.scheduledAt(), event.durationMinutes());
+    }
+
+    /** Offers a slot that just became free to the first eligible waiting patient; false when nobody took it. */
+    @Transactional
+    public boolean offerFreedSlot(Long doctorId, LocalDateTime start, int minutes) {
+        return offer(doctorId, start, minutes);
+    }
+
+    private boolean offer(Long doctorId, LocalDateTime start, int minutes) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!start.isAfter(now)) return false;
+
+        LocalDateTime end = start.plusMinutes(minutes);
+        if (availabilityService.hasOverlappingPending(doctorId, start, minutes)) return false;
+        if (waitlistEntryRepository.existsHoldOverlapping(doctorId, start, end, -1L, now)) return false;
+
+        // Paged rather than re-queried: an entry another instance claimed can still show as WAITING
+        // in this transaction's snapshot, and its conditional update just returns 0.
+        for (int page = 0; ; page++) {
+            List<WaitlistEntry> candidates = waitlistEntryRepository.findWaitingFor(
+                    doctorId, start.toLocalDate(), minutes, start.toLocalTime(), PageRequest.of(page, OFFER_BATCH));
+            for (WaitlistEntry candidate : candidates) {
+                LocalDateTime holdUntil = now.plus(hold);
+                if (waitlistEntryRepository.offer(candidate.getId(), start, end, holdUntil, now) == 1) {
+                    notifyOffer(candidate, doctorId, start, holdUntil);
+                    return true;
+                }
+            }
+            if (candidates.size() < OFFER_BATCH) return false;
+        }
+    }
+
+    private void notifyOffer(WaitlistEntry entry, Long doctorId, LocalDateTime start, LocalDateTime holdUntil) {
+        User patient = userRepository.findById(entry.getPatientId()).orElse(null);
+        Doctor doctor = doctorRepository.findById(doctorId).orElse(null);
+        if (patient == null || doctor == null) return;
+        emailOutboxService.enqueue(
+                patient.getEmail(),
+                "A slot opened up with Dr. " + doctor.getFullname(),
+                "A slot with Dr. " + doctor.getFullname() + " on " + start + " is held for you until " + holdUntil +
+                        ".\n\nAccept it from your waitlist (entry #" + entry.getId() + ") before then, or it goes to the next patient."
+        );
+    }
+
+    static int minutesBetween(LocalDateTime start, LocalDateTime end) {
+        return (int) Duration.between(start, end).toMinutes();
+    }
+}
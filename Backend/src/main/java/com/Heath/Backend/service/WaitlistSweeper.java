@@ -0,0 +1,63 @@
+package com.Heath.Backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.Heath.Backend.Models.WaitlistEntry;
+import com.Heath.Backend.Repository.WaitlistEntryRepository;
+
+/**
+ * Periodically expires holds nobody accepted (handing each slot to the next patient in line) and
+ * retires entries for days that have passed.
+ */
+@Component
+public class WaitlistSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistSweeper.class);
+
+    private final WaitlistService waitlistService;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final int batchSize;
+
+    public WaitlistSweeper(
+            WaitlistService waitlistService,
+            WaitlistEntryRepository waitlistEntryRepository,
+            @Value("${appointments.waitlist.batch-size:100}") int batchSize
+    ) {
+        this.waitlistService = waitlistService;
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.waitlist.sweep-interval:PT30S}")
+    public synchronized void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int lapsed = 0;
+        int reoffered = 0;
+        List<WaitlistEntry> holds;
+        do {
+            holds = waitlistEntryRepository.findLapsedHolds(now, PageRequest.of(0, batchSize));
+            for (WaitlistEntry entry : holds) {
+                // Loses to an accept that got in first.
+                if (waitlistEntryRepository.expireHold(entry.getId(), now) == 0) continue;
+                lapsed++;
+                int minutes = WaitlistService.minutesBetween(entry.getOfferAt(), entry.getOfferEndsAt());
+                if (waitlistService.offerFreedSlot(entry.getDoctorId(), entry.getOfferAt(), minutes)) reoffered++;
+            }
+        } while (holds.size() == batchSize);
+
+        LocalDate today = LocalDate.now();
+        int retired = waitlistEntryRepository.expireWaitingBefore(today, now);
+        if (lapsed > 0 || retired > 0) {
+            log.info("Waitlist sweep: {} holds lapsed ({} passed on), {} entries retired", lapsed, reoffered, retired);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.Heath.Backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.Heath.Backend.Models.Appointment;
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Models.User;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.UserRepository;
+import com.Heath.Backend.Utils.ApiResponse;
+import com.Heath.Backend.Utils.EmailUtil;
+import com.Heath.Backend.service.AppointmentService;
+import com.Heath.Backend.service.SlotOccupancyCache;
+
+/**
+ * Drives bookings through {@link AppointmentService} and the {@link SlotOccupancyCache} behind it:
+ * duration-aware overlaps, cancel and rebook, rows outside today's clinic hours, and bookings or
+ * releases committed by another instance, simulated by writing the rows directly.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class BookingTests {
+
+    private static final String TAKEN = "Selected slot already taken";
+
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private SlotOccupancyCache slotOccupancyCache;
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @MockBean private EmailUtil emailUtil;
+
+    @Test
+    void rejectsOverlapsByDurationAndAcceptsBackToBackSlots() {
+        Doctor doctor = doctor(LocalTime.of(9, 0));
+        LocalDate day = LocalDate.now().plusDays(2);
+
+        assertThat(book("first", doctor, day, "10:00", 30).getStatus()).isEqualTo("success");
+        assertThat(book("second", doctor, day, "10:15", 45).getMessage()).isEqualTo(TAKEN);
+        assertThat(book("third", doctor, day, "09:45", 30).getMessage()).isEqualTo(TAKEN);
+        assertThat(book("fourth", doctor, day, "10:30", 30).getStatus()).isEqualTo("success");
+        assertThat(book("fifth", doctor, day, "09:30", 30).getStatus()).isEqualTo("success");
+        assertThat(book("sixth", doctor, day, "09:00", 120).getMessage()).isEqualTo(TAKEN);
+
+        // Every booking bumps the version on the locked row, once.
+        assertThat(bookingVersion(doctor)).isEqualTo(3);
+    }
+
+    @Test
+    void cancelledSlotCanBeRebooked() {
+        Doctor doctor = doctor(LocalTime.of(9, 0));
+        LocalDate day = LocalDate.now().plusDays(3);
+
+        Long appointmentId = appointmentId(book("holder", doctor, day, "11:00", 60));
+        assertThat(appointmentService.cancelAppointment("holder@booking.test", appointmentId, "plans changed").getStatus())
+                .isEqualTo("success");
+
+        assertThat(book("rebooker", doctor, day, "11:30", 30).getStatus()).isEqualTo("success");
+        assertThat(book("late", doctor, day, "11:00", 45).getMessage()).isEqualTo(TAKEN);
+        assertThat(book("early", doctor, day, "11:00", 30).getStatus()).isEqualTo("success");
+    }
+
+    @Test
+    void rowsOutsideTodaysClinicHoursStillBlock() {
+        Doctor doctor = doctor(LocalTime.of(8, 0));
+        LocalDate day = LocalDate.now().plusDays(4);
+        assertThat(book("legacy", doctor, day, "08:30", 60).getStatus()).isEqualTo("success");
+
+        // The clinic now opens at 9:00, so the 8:30 booking is clipped to the start of the cached day.
+        jdbcTemplate.update("update doctor set clinic_open_time = ? where id = ?", LocalTime.of(9, 0), doctor.getId());
+        assertThat(book("morning", doctor, day, "09:00", 30).getMessage()).isEqualTo(TAKEN);
+        assertThat(book("after", doctor, day, "09:30", 30).getStatus()).isEqualTo("success");
+
+        // Intervals outside the clinic day are answered by the database instead of the cache.
+        Doctor reloaded = doctorRepository.findById(doctor.getId()).orElseThrow();
+        assertThat(slotOccupancyCache.overlaps(reloaded, day.atTime(8, 45), 10)).isTrue();
+        assertThat(slotOccupancyCache.overlaps(reloaded, day.atTime(7, 0), 60)).isFalse();
+    }
+
+    @Test
+    void bookingOnAnotherInstanceInvalidatesCachedDays() {
+        Doctor doctor = doctor(LocalTime.of(9, 0));
+        LocalDate day = LocalDate.now().plusDays(5);
+        assertThat(book("local", doctor, day, "10:00", 30).getStatus()).isEqualTo("success");
+
+        // Another instance books 14:00 under the row lock: inserts the row and bumps the version.
+        User remote = patient("remote");
+        jdbcTemplate.update("insert into appointments (doctor_id, patient_id, scheduled_at, duration_minutes, status, " +
+                        "otp_attempts, max_otp_attempts, created_at) values (?, ?, ?, 30, 'PENDING', 0, 3, ?)",
+                doctor.getId(), remote.getId(), day.atTime(14, 0), LocalDateTime.now());
+        jdbcTemplate.update("update doctor set booking_version = booking_version + 1 where id = ?", doctor.getId());
+
+        assertThat(book("clash", doctor, day, "14:00", 30).getMessage()).isEqualTo(TAKEN);
+        assertThat(bookingVersion(doctor)).isEqualTo(2);
+    }
+
+    @Test
+    void releaseOnAnotherInstanceIsConfirmedAgainstTheDatabase() {
+        Doctor doctor = doctor(LocalTime.of(9, 0));
+        LocalDate day = LocalDate.now().plusDays(6);
+        Long appointmentId = appointmentId(book("held", doctor, day, "15:00", 30));
+
+        // Cancelled elsewhere: no event reaches this instance, so the cached day still says taken.
+        jdbcTemplate.update("update appointments set status = 'CANCELLED' where id = ?", appointmentId);
+        assertThat(book("taker", doctor, day, "15:00", 30).getStatus()).isEqualTo("success");
+        assertThat(book("again", doctor, day, "15:15", 30).getMessage()).isEqualTo(TAKEN);
+    }
+
+    @Test
+    void concurrentBookingsForOneSlotSucceedOnce() throws Exception {
+        Doctor doctor = doctor(LocalTime.of(9, 0));
+        LocalDate day = LocalDate.now().plusDays(7);
+        List<User> patients = new ArrayList<>();
+        for (int i = 0; i < 6; i++) patients.add(patient("racer" + i));
+
+        ExecutorService pool = Executors.newFixedThreadPool(patients.size());
+        try {
+            List<Callable<String>> attempts = new ArrayList<>();
+            for (int i = 0; i < patients.size(); i++) {
+                User patient = patients.get(i);
+                String time = i % 2 == 0 ? "16:00" : "16:15";
+                attempts.add(() -> {
+                    try {
+                        return appointmentService.createAppointment(patient.getEmail(), payload(doctor, day, time, 30)).getStatus();
+                    } catch (RuntimeException e) {
+                        return "error";
+                    }
+                });
+            }
+            long booked = 0;
+            for (Future<String> attempt : pool.invokeAll(attempts)) {
+                if ("success".equals(attempt.get())) booked++;
+            }
+            assertThat(booked).isEqualTo(1);
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(jdbcTemplate.queryForObject("select count(*) from appointments where doctor_id = ? and status = 'PENDING'",
+                Long.class, doctor.getId())).isEqualTo(1);
+    }
+
+    private ApiResponse<Object> book(String patientName, Doctor doctor, LocalDate day, String time, int minutes) {
+        return appointmentService.createAppointment(patient(patientName).getEmail(), payload(doctor, day, time, minutes));
+    }
+
+    private static Map<String, String> payload(Doctor doctor, LocalDate day, String time, int minutes) {
+        Map<String, String> payload = new HashMap<>();
+        payload.put("doctorId", String.valueOf(doctor.getId()));
+        payload.put("date", day.toString());
+        payload.put("time", time);
+        payload.put("durationMinutes", String.valueOf(minutes));
+        return payload;
+    }
+
+    private Doctor doctor(LocalTime open) {
+        Doctor doctor = new Doctor();
+        String name = "doctor" + System.nanoTime();
+        doctor.setFullname(name);
+        doctor.setEmail(name + "@booking.test");
+        doctor.setPassword("x");
+        doctor.setVerified(true);
+        doctor.setCity("Pune");
+        doctor.setState("Maharashtra");
+        doctor.setSpecialization("Dermatology");
+        doctor.setClinicOpenTime(open);
+        doctor.setClinicCloseTime(LocalTime.of(17, 0));
+        doctor.setWorkingDays(Set.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY"));
+        return doctorRepository.save(doctor);
+    }
+
+    private User patient(String name) {
+        String email = name + "@booking.test";
+        return userRepository.findByEmail(email).orElseGet(() -> {
+            User patient = new User();
+            patient.setUserName(name);
+            patient.setEmail(email);
+            patient.setPassword("x");
+            return userRepository.save(patient);
+        });
+    }
+
+    private long bookingVersion(Doctor doctor) {
+        return jdbcTemplate.queryForObject("select booking_version from doctor where id = ?", Long.class, doctor.getId());
+    }
+
+    private static Long appointmentId(ApiResponse<Object> booked) {
+        assertThat(booked.getStatus()).isEqualTo("success");
+        return ((Appointment) ((Map<?, ?>) booked.getData()).get("appointment")).getId();
+    }
+}
@@ -0,0 +1,171 @@
+package com.Heath.Backend;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.Heath.Backend.Utils.SearchKeys;
+
+/**
+ * Recommendation page lookups over a synthetic 500k-doctor table, written the way Hibernate writes
+ * them: the old IgnoreCase form ({@code upper(city) = upper(?)}) against the normalised key columns.
+ * The table carries both the old (city, verified) style indexes and the new key indexes, and setup
+ * prints both plans, so the scan-to-index change is visible next to the timings. Not part of the
+ * test suite: after {@code mvn test-compile}, run {@link #main} on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DoctorSearchKeyBenchmark {
+
+    private static final int DOCTORS = 500_000;
+    private static final String[] CITIES = {
+            "Pune", "Mumbai", "Navi Mumbai", "Nagpur", "Nashik", "Bengaluru", "Mysuru", "Chennai", "Coimbatore", "Hyderabad",
+            "Delhi", "Noida", "Gurugram", "Jaipur", "Jodhpur", "Ahmedabad", "Surat", "Kolkata", "Lucknow", "Bhopal"};
+    private static final String[] STATES = {
+            "Maharashtra", "Maharashtra", "Maharashtra", "Maharashtra", "Maharashtra", "Karnataka", "Karnataka", "Tamil Nadu",
+            "Tamil Nadu", "Telangana", "Delhi", "Uttar Pradesh", "Haryana", "Rajasthan", "Rajasthan", "Gujarat", "Gujarat",
+            "West Bengal", "Uttar Pradesh", "Madhya Pradesh"};
+    private static final String[] SPECIALIZATIONS = {
+            "Cardiology", "Dermatology", "Pediatrics", "Orthopedics", "Neurology", "Psychiatry", "Gynecology", "ENT",
+            "Ophthalmology", "General Medicine"};
+
+    private static final String COLUMNS = "select d.id, d.fullname, d.city, d.state, d.specialization from doctor d ";
+    private static final String IGNORE_CASE_CITY = "where upper(d.city) = upper(?) and d.verified = true";
+    private static final String KEY_CITY = "where d.city_key = ? and d.verified = true";
+    private static final String IGNORE_CASE_ADVANCED = "where upper(d.city) = upper(?) and upper(d.state) = upper(?) " +
+            "and upper(d.specialization) = upper(?) and d.verified = true";
+    private static final String KEY_ADVANCED = "where d.city_key = ? and d.state_key = ? and d.specialization_key = ? and d.verified = true";
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        // OPTIMIZE_REUSE_RESULTS=FALSE: H2 would otherwise answer a repeated identical query from its result cache.
+        connection = DriverManager.getConnection("jdbc:h2:mem:doctor-search-keys;DB_CLOSE_DELAY=-1;MODE=MySQL;OPTIMIZE_REUSE_RESULTS=FALSE");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create table doctor (id bigint primary key, fullname varchar(255), city varchar(255), state varchar(255), " +
+                    "specialization varchar(255), verified boolean, city_key varchar(255), state_key varchar(255), " +
+                    "specialization_key varchar(255))");
+            ddl.execute("create table place (n int primary key, city varchar(255), state varchar(255), city_key varchar(255), state_key varchar(255))");
+            ddl.execute("create table speciality (n int primary key, name varchar(255), name_key varchar(255))");
+        }
+        try (PreparedStatement place = connection.prepareStatement("insert into place values (?, ?, ?, ?, ?)");
+             PreparedStatement speciality = connection.prepareStatement("insert into speciality values (?, ?, ?)")) {
+            for (int i = 0; i < CITIES.length; i++) {
+                place.setInt(1, i);
+                place.setString(2, i % 2 == 0 ? CITIES[i].toUpperCase() : CITIES[i]);
+                place.setString(3, STATES[i]);
+                place.setString(4, SearchKeys.normalize(CITIES[i]));
+                place.setString(5, SearchKeys.normalize(STATES[i]));
+                place.executeUpdate();
+            }
+            for (int i = 0; i < SPECIALIZATIONS.length; i++) {
+                speciality.setInt(1, i);
+                speciality.setString(2, SPECIALIZATIONS[i]);
+                speciality.setString(3, SearchKeys.normalize(SPECIALIZATIONS[i]));
+                speciality.executeUpdate();
+            }
+        }
+        try (Statement seed = connection.createStatement()) {
+            seed.execute("insert into doctor select x, 'Doctor ' || x, p.city, p.state, s.name, mod(x, 7) <> 0, " +
+                    "p.city_key, p.state_key, s.name_key from system_range(1, " + DOCTORS + ") " +
+                    "join place p on p.n = mod(x, " + CITIES.length + ") " +
+                    "join speciality s on s.n = mod(x / " + CITIES.length + ", " + SPECIALIZATIONS.length + ")");
+            seed.execute("create index idx_doctor_city_verified on doctor (city, verified)");
+            seed.execute("create index idx_doctor_city_state_specialization_verified on doctor (city, state, specialization, verified)");
+            seed.execute("create index idx_doctor_city_key_verified on doctor (city_key, verified)");
+            seed.execute("create index idx_doctor_city_state_specialization_key_verified on doctor " +
+                    "(city_key, state_key, specialization_key, verified)");
+            seed.execute("analyze");
+        }
+
+        printPlan("IgnoreCase city", COLUMNS + IGNORE_CASE_CITY + " limit 10", "pune");
+        printPlan("Key city", COLUMNS + KEY_CITY + " limit 10", "pune");
+        printPlan("IgnoreCase advanced", COLUMNS + IGNORE_CASE_ADVANCED + " limit 10", "pune", "maharashtra", "dermatology");
+        printPlan("Key advanced", COLUMNS + KEY_ADVANCED + " limit 10", "pune", "maharashtra", "dermatology");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement drop = connection.createStatement()) {
+            drop.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long ignoreCaseCityPage() throws SQLException {
+        return page(IGNORE_CASE_CITY, "Pune");
+    }
+
+    @Benchmark
+    public long keyCityPage() throws SQLException {
+        return page(KEY_CITY, SearchKeys.normalize("Pune"));
+    }
+
+    @Benchmark
+    public long ignoreCaseAdvancedPage() throws SQLException {
+        return page(IGNORE_CASE_ADVANCED, "Pune", "Maharashtra", "Dermatology");
+    }
+
+    @Benchmark
+    public long keyAdvancedPage() throws SQLException {
+        return page(KEY_ADVANCED, SearchKeys.normalize("Pune"), SearchKeys.normalize("Maharashtra"), SearchKeys.normalize("Dermatology"));
+    }
+
+    // One Page<Doctor>: the first ten rows plus the total count, as Spring Data issues them.
+    private long page(String where, String... params) throws SQLException {
+        long checksum = 0;
+        try (PreparedStatement list = prepare(COLUMNS + where + " limit 10", params);
+             ResultSet rs = list.executeQuery()) {
+            while (rs.next()) checksum += rs.getLong(1);
+        }
+        try (PreparedStatement count = prepare("select count(d.id) from doctor d " + where, params);
+             ResultSet rs = count.executeQuery()) {
+            rs.next();
+            checksum += rs.getLong(1);
+        }
+        return checksum;
+    }
+
+    private PreparedStatement prepare(String sql, String... params) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) ps.setString(i + 1, params[i]);
+        return ps;
+    }
+
+    private void printPlan(String label, String sql, String... params) throws SQLException {
+        try (PreparedStatement ps = prepare("EXPLAIN " + sql, params); ResultSet rs = ps.executeQuery()) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) plan.append(rs.getString(1)).append('\n');
+            System.out.println("# " + label + " plan:\n" + plan);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DoctorSearchKeyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,141 @@
+package com.Heath.Backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalTime;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Models.User;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.UserRepository;
+import com.Heath.Backend.service.AppointmentExportService;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Exports a million synthetic appointments, half hot and half archived, and checks that the live
+ * heap stays flat while they are written: memory is sampled after a full GC every megabyte of
+ * compressed output, so only what the export actually retains is measured. The URL carries no
+ * streaming flags of its own: DataSourceConfig applies the same per-driver settings it does in
+ * production. Slow, so it only runs under {@code -Pslow-tests}.
+ */
+@Tag("slow")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ExportMemoryTests {
+
+    private static final int ROWS_PER_TABLE = 500_000;
+    // Streaming stays well under this (G1 accounting alone moves a few tens of MB between samples);
+    // buffering just the hot half of the rows already goes past it.
+    private static final long HEAP_CEILING = 128L * 1024 * 1024;
+
+    @Autowired private AppointmentExportService appointmentExportService;
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DataSource dataSource;
+
+    @Test
+    void exportOfAMillionRowsKeepsHeapFlat() throws IOException {
+        // Streaming depends on the driver settings the pool applies, not on anything in the URL.
+        assertThat(((HikariDataSource) dataSource).getDataSourceProperties())
+                .containsEntry("LAZY_QUERY_EXECUTION", "TRUE");
+        Long doctorId = seed();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+
+        HeapSampler sink = new HeapSampler(memory, 1024 * 1024);
+        GZIPOutputStream gzip = new GZIPOutputStream(sink, 8192);
+        long rows = appointmentExportService.writeDoctorExport(doctorId, AppointmentExportService.Format.CSV, gzip);
+        gzip.finish();
+
+        assertThat(rows).isEqualTo(2L * ROWS_PER_TABLE);
+        assertThat(sink.samples).isGreaterThan(0);
+        assertThat(sink.peak - baseline).isLessThan(HEAP_CEILING);
+    }
+
+    private Long seed() {
+        Doctor doctor = new Doctor();
+        doctor.setFullname("Export Doctor");
+        doctor.setEmail("doctor@export.test");
+        doctor.setPassword("x");
+        doctor.setVerified(true);
+        doctor.setCity("Pune");
+        doctor.setState("Maharashtra");
+        doctor.setSpecialization("Dermatology");
+        doctor.setClinicOpenTime(LocalTime.of(9, 0));
+        doctor.setClinicCloseTime(LocalTime.of(17, 0));
+        doctor.setWorkingDays(Set.of("MONDAY"));
+        doctorRepository.save(doctor);
+
+        User patient = new User();
+        patient.setUserName("export-patient");
+        patient.setEmail("patient@export.test");
+        patient.setPassword("x");
+        userRepository.save(patient);
+
+        // Archived rows are the older half, so the merge drains the archive stream before the hot one.
+        jdbcTemplate.update("insert into appointments_archive (id, doctor_id, patient_id, scheduled_at, duration_minutes, status, " +
+                "message, created_at, updated_at, archived_at) " +
+                "select x, ?, ?, dateadd('MINUTE', x * 30, timestamp '2020-01-01 09:00:00'), 30, 'RESOLVED', " +
+                "'Follow-up, visit ' || x, timestamp '2020-01-01 00:00:00', timestamp '2020-01-01 00:00:00', current_timestamp " +
+                "from system_range(1, ?)", doctor.getId(), patient.getId(), ROWS_PER_TABLE);
+        jdbcTemplate.update("insert into appointments (id, doctor_id, patient_id, scheduled_at, duration_minutes, status, " +
+                "message, otp_attempts, max_otp_attempts, created_at, updated_at) " +
+                "select x, ?, ?, dateadd('MINUTE', x * 30, timestamp '2020-01-01 09:00:00'), 30, 'RESOLVED', " +
+                "'Follow-up, visit ' || x, 0, 10, timestamp '2020-01-01 00:00:00', timestamp '2020-01-01 00:00:00' " +
+                "from system_range(?, ?)", doctor.getId(), patient.getId(), ROWS_PER_TABLE + 1, 2 * ROWS_PER_TABLE);
+        return doctor.getId();
+    }
+
+    /** Discards the export and records the post-GC heap every {@code every} bytes. */
+    private static final class HeapSampler extends OutputStream {
+        private final MemoryMXBean memory;
+        private final long every;
+        private long written;
+        private long nextSample;
+        long peak;
+        int samples;
+
+        HeapSampler(MemoryMXBean memory, long every) {
+            this.memory = memory;
+            this.every = every;
+            this.nextSample = every;
+        }
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int len) {
+            written += len;
+            if (written < nextSample) return;
+            nextSample += every;
+            System.gc();
+            peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+            samples++;
+        }
+    }
+}
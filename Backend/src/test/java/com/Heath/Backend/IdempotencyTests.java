@@ -0,0 +1,160 @@
+package com.Heath.Backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.Heath.Backend.Models.User;
+import com.Heath.Backend.Repository.IdempotencyRecordRepository;
+import com.Heath.Backend.Repository.UserRepository;
+import com.Heath.Backend.Utils.ApiResponse;
+import com.Heath.Backend.Utils.EmailUtil;
+import com.Heath.Backend.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Sends requests through {@link IdempotencyService} against a real database: the first call runs
+ * and is replayed, a reused key with another request or a live lease is refused, an abandoned
+ * attempt is taken over, and a failed action takes its claim down with it. Attempts running on
+ * another instance are simulated by writing the claim rows directly.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class IdempotencyTests {
+
+    @Autowired private IdempotencyService idempotencyService;
+    @Autowired private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @MockBean private EmailUtil emailUtil;
+
+    @Test
+    void firstCallRunsAndRetriesReplayItsResponse() {
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<ApiResponse<Object>> action = () -> ApiResponse.success("Booked", Map.of("run", runs.incrementAndGet()));
+
+        ApiResponse<Object> first = idempotencyService.execute("first@idem.test", "key-1", "book", action);
+        ApiResponse<Object> retry = idempotencyService.execute("first@idem.test", "key-1", "book", action);
+
+        assertThat(runs).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo("success");
+        assertThat(retry.getMessage()).isEqualTo("Booked");
+        assertThat(retry.getData()).isEqualTo(first.getData());
+        assertThat(statusOf("first@idem.test", "key-1")).isEqualTo("COMPLETED");
+
+        // Keys belong to their owner.
+        idempotencyService.execute("other@idem.test", "key-1", "book", action);
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void reusedKeyForAnotherRequestIsRefused() {
+        AtomicInteger runs = new AtomicInteger();
+        idempotencyService.execute("mismatch@idem.test", "key-1", "book 10:00", counting(runs));
+
+        ApiResponse<Object> reused = idempotencyService.execute("mismatch@idem.test", "key-1", "book 11:00", counting(runs));
+        assertThat(reused.getStatus()).isEqualTo("error");
+        assertThat(reused.getMessage()).contains("different request");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void attemptHoldingALiveLeaseIsNotRunTwice() {
+        claimedElsewhere("busy@idem.test", "key-1", LocalDateTime.now().plusMinutes(1));
+        AtomicInteger runs = new AtomicInteger();
+
+        ApiResponse<Object> retry = idempotencyService.execute("busy@idem.test", "key-1", "book", counting(runs));
+        assertThat(retry.getStatus()).isEqualTo("error");
+        assertThat(retry.getMessage()).contains("still being processed");
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void attemptWhoseLeaseRanOutIsTakenOver() {
+        claimedElsewhere("abandoned@idem.test", "key-1", LocalDateTime.now().minusSeconds(5));
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThat(idempotencyService.execute("abandoned@idem.test", "key-1", "book", counting(runs)).getStatus())
+                .isEqualTo("success");
+        assertThat(runs).hasValue(1);
+        assertThat(statusOf("abandoned@idem.test", "key-1")).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void failedActionRollsBackAndReleasesTheKey() {
+        Supplier<ApiResponse<Object>> failing = () -> {
+            User user = new User();
+            user.setUserName("rolledback");
+            user.setEmail("rolledback@idem.test");
+            user.setPassword("x");
+            userRepository.save(user);
+            throw new IllegalStateException("booking failed");
+        };
+
+        assertThatThrownBy(() -> idempotencyService.execute("failing@idem.test", "key-1", "book", failing))
+                .hasMessageContaining("booking failed");
+        assertThat(userRepository.findByEmail("rolledback@idem.test")).isEmpty();
+        assertThat(idempotencyRecordRepository.findAll())
+                .noneMatch(row -> row.getOwner().equals("failing@idem.test"));
+
+        // Nothing was booked, so the retry runs instead of being refused as in progress.
+        AtomicInteger runs = new AtomicInteger();
+        assertThat(idempotencyService.execute("failing@idem.test", "key-1", "book", counting(runs)).getStatus())
+                .isEqualTo("success");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void cachedResponseLapsesWithItsRow() throws InterruptedException {
+        // The action outlives half the TTL, so the cache entry would outlive the row by as much.
+        IdempotencyService shortLived = new IdempotencyService(idempotencyRecordRepository, objectMapper, transactionManager,
+                Duration.ofSeconds(1), Duration.ofMinutes(1), 100);
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<ApiResponse<Object>> slow = () -> {
+            try {
+                Thread.sleep(600);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return counting(runs).get();
+        };
+
+        shortLived.execute("expiring@idem.test", "key-1", "book", slow);
+        Thread.sleep(600);
+        shortLived.execute("expiring@idem.test", "key-1", "book", slow);
+        assertThat(runs).hasValue(2);
+    }
+
+    private static Supplier<ApiResponse<Object>> counting(AtomicInteger runs) {
+        return () -> ApiResponse.success("Done", Map.of("run", runs.incrementAndGet()));
+    }
+
+    private void claimedElsewhere(String owner, String key, LocalDateTime lockedUntil) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("insert into idempotency_keys (owner, idem_key, fingerprint, status, locked_until, created_at, " +
+                "expires_at) values (?, ?, ?, 'IN_PROGRESS', ?, ?, ?)",
+                owner, key, "book", lockedUntil, now, now.plusHours(24));
+    }
+
+    private String statusOf(String owner, String key) {
+        return jdbcTemplate.queryForObject("select status from idempotency_keys where owner = ? and idem_key = ?",
+                String.class, owner, key);
+    }
+}
@@ -0,0 +1,74 @@
+package com.Heath.Backend;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.Heath.Backend.Utils.OtpHasher;
+
+/**
+ * Compares the appointment OTP paths: the BCrypt encoder they used to go through and
+ * {@link OtpHasher}. Not part of the test suite: after {@code mvn test-compile}, run {@link #main}
+ * (or {@code org.openjdk.jmh.Main OtpHasherBenchmark}) on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OtpHasherBenchmark {
+
+    private static final String OTP = "482913";
+
+    private PasswordEncoder bcrypt;
+    private OtpHasher hmac;
+    private String bcryptHash;
+    private String hmacHash;
+
+    @Setup
+    public void setUp() {
+        bcrypt = new BCryptPasswordEncoder();
+        hmac = new OtpHasher("benchmark-secret-benchmark-secret-benchmark", "benchmark-jwt-secret", bcrypt);
+        bcryptHash = bcrypt.encode(OTP);
+        hmacHash = hmac.hash(OTP);
+    }
+
+    @Benchmark
+    public String bcryptHash() {
+        return bcrypt.encode(OTP);
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return bcrypt.matches(OTP, bcryptHash);
+    }
+
+    @Benchmark
+    public String hmacHash() {
+        return hmac.hash(OTP);
+    }
+
+    @Benchmark
+    public boolean hmacMatches() {
+        return hmac.matches(OTP, hmacHash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OtpHasherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
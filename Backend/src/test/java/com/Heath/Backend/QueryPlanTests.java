@@ -0,0 +1,170 @@
+package com.Heath.Backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.Heath.Backend.Models.Appointment.Status;
+import com.Heath.Backend.Models.WaitlistEntry;
+import com.Heath.Backend.Repository.AppointmentArchiveRepository;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.DoctorCloseDateRepository;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.UserRepository;
+import com.Heath.Backend.Repository.WaitlistEntryRepository;
+
+/**
+ * Runs each hot repository query, captures the SQL Hibernate actually sent and asks the database
+ * for its plan. The build fails as soon as one of them needs a full table scan.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:queryplans;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.Heath.Backend.QueryPlanTests$Capture"
+})
+class QueryPlanTests {
+
+    private static final List<Status> HISTORY = List.of(Status.RESOLVED, Status.CANCELLED, Status.OTP_LOCKED, Status.EXPIRED);
+
+    @Autowired private DataSource dataSource;
+    @Autowired private AppointmentRepository appointmentRepository;
+    @Autowired private AppointmentArchiveRepository appointmentArchiveRepository;
+    @Autowired private DoctorCloseDateRepository doctorCloseDateRepository;
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private WaitlistEntryRepository waitlistEntryRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void appointmentQueriesUseIndexes() throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        assertIndexed(() -> appointmentRepository.findPendingIntervalsBetween(1L, now, now.plusDays(1)));
+        assertIndexed(() -> appointmentRepository.findPatientUpcomingSummaries(1L, now, PageRequest.of(1, 10)));
+        assertIndexed(() -> appointmentRepository.countByPatient_IdAndStatusIn(1L, HISTORY));
+        assertIndexed(() -> appointmentRepository.findDoctorUpcomingSummaries(1L, now, PageRequest.of(1, 10)));
+        assertIndexed(() -> appointmentRepository.countByDoctor_IdAndStatusIn(1L, HISTORY));
+        assertIndexed(() -> appointmentRepository.findPatientUpcomingAfter(1L, now, 1L, PageRequest.of(0, 11)));
+        assertIndexed(() -> appointmentRepository.findPatientHistoryBefore(1L, HISTORY, now, 1L, PageRequest.of(0, 11)));
+        assertIndexed(() -> appointmentRepository.findDoctorUpcomingAfter(1L, now, 1L, PageRequest.of(0, 11)));
+        assertIndexed(() -> appointmentRepository.findDoctorHistoryBefore(1L, HISTORY, now, 1L, PageRequest.of(0, 11)));
+        assertIndexed(() -> transactionTemplate.executeWithoutResult(
+                status -> appointmentRepository.findStalePendingForUpdate(now, PageRequest.of(0, 500))));
+        assertIndexed(() -> appointmentRepository.findExpiredOtpIds(now, PageRequest.of(0, 500)));
+        assertIndexed(() -> appointmentRepository.findArchivableIds(HISTORY, now, PageRequest.of(0, 500)));
+        assertIndexed(() -> transactionTemplate.executeWithoutResult(
+                status -> appointmentRepository.streamDoctorSchedule(1L, now).close()));
+        assertIndexed(() -> appointmentRepository.findDoctorScheduleVersion(1L, now));
+        assertIndexed(() -> transactionTemplate.executeWithoutResult(
+                status -> appointmentRepository.streamDoctorExport(1L).close()));
+    }
+
+    @Test
+    void archiveQueriesUseIndexes() throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        assertIndexed(() -> appointmentArchiveRepository.findPatientHistoryBefore(1L, now, 1L, PageRequest.of(0, 11)));
+        assertIndexed(() -> appointmentArchiveRepository.findDoctorHistoryBefore(1L, now, 1L, PageRequest.of(0, 11)));
+        assertIndexed(() -> appointmentArchiveRepository.countByPatient_Id(1L));
+        assertIndexed(() -> appointmentArchiveRepository.countByDoctor_Id(1L));
+        assertIndexed(() -> transactionTemplate.executeWithoutResult(
+                status -> appointmentArchiveRepository.streamDoctorExport(1L).close()));
+    }
+
+    @Test
+    void lookupQueriesUseIndexes() throws SQLException {
+        assertIndexed(() -> doctorCloseDateRepository.findByDoctorIdAndClosedDateBetween(1L, LocalDate.now(), LocalDate.now().plusDays(30)));
+        assertIndexed(() -> doctorCloseDateRepository.existsByDoctorIdAndClosedDate(1L, LocalDate.now()));
+        assertIndexed(() -> doctorRepository.findByEmail("nobody@plans.test"));
+        assertIndexed(() -> doctorRepository.findByCityKeyAndVerifiedTrue("pune", PageRequest.of(1, 10)));
+        assertIndexed(() -> doctorRepository.findByStateKeyAndVerifiedTrue("maharashtra", PageRequest.of(1, 10)));
+        assertIndexed(() -> doctorRepository.findByCityKeyAndStateKeyAndSpecializationKeyAndVerifiedTrue(
+                "pune", "maharashtra", "dermatology", PageRequest.of(1, 10)));
+        assertIndexed(() -> userRepository.findByEmail("nobody@plans.test"));
+        assertIndexed(() -> waitlistEntryRepository.existsHoldOverlapping(1L, LocalDateTime.now(), LocalDateTime.now().plusMinutes(30), 1L, LocalDateTime.now()));
+        assertIndexed(() -> waitlistEntryRepository.findLapsedHolds(LocalDateTime.now(), PageRequest.of(0, 100)));
+        assertIndexed(() -> waitlistEntryRepository.findWaitingFor(1L, LocalDate.now(), 30, LocalTime.of(10, 0), PageRequest.of(0, 20)));
+        assertIndexed(() -> waitlistEntryRepository.existsByDoctorIdAndPatientIdAndWaitDayAndStatusIn(1L, 1L, LocalDate.now(), List.of(WaitlistEntry.Status.WAITING)));
+        assertIndexed(() -> waitlistEntryRepository.findByPatientIdAndStatusInOrderByWaitDayAsc(1L, List.of(WaitlistEntry.Status.WAITING)));
+    }
+
+    private void assertIndexed(Runnable repositoryCall) throws SQLException {
+        Capture.start();
+        repositoryCall.run();
+        List<String> statements = Capture.stop();
+        assertThat(statements).isNotEmpty();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : statements) {
+                String plan = explain(connection, sql);
+                assertThat(isFullScan(connection, plan))
+                        .withFailMessage("Full table scan for:%n%s%nPlan:%n%s", sql, plan)
+                        .isFalse();
+            }
+        }
+    }
+
+    private String explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+            int params = ps.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= params; i++) ps.setObject(i, null);
+
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    for (int c = 1; c <= columns; c++) {
+                        plan.append(rs.getMetaData().getColumnLabel(c)).append('=').append(rs.getString(c)).append(' ');
+                    }
+                    plan.append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    // H2 marks scans as "tableScan"; MySQL reports access type ALL.
+    private boolean isFullScan(Connection connection, String plan) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        if (product.contains("mysql")) return plan.contains("type=ALL ");
+        return plan.contains("tableScan");
+    }
+
+    /** Records the SQL prepared on the current thread between start() and stop(). */
+    public static class Capture implements StatementInspector {
+        private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+        static void start() {
+            STATEMENTS.set(new ArrayList<>());
+        }
+
+        static List<String> stop() {
+            List<String> captured = STATEMENTS.get();
+            STATEMENTS.remove();
+            return captured;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> captured = STATEMENTS.get();
+            if (captured != null) captured.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.Heath.Backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Set;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.Heath.Backend.Models.Appointment;
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Models.User;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.UserRepository;
+import com.Heath.Backend.Utils.JwtUtil;
+import com.Heath.Backend.service.AvailabilityService;
+import com.Heath.Backend.service.DoctorAvailabilityIndex;
+import com.Heath.Backend.service.DoctorGeoIndex;
+import com.Heath.Backend.service.DoctorSearchIndex;
+import com.Heath.Backend.service.DoctorTextIndex;
+
+/**
+ * Guards the read paths against N+1 regressions: every endpoint below must run a fixed number of
+ * SQL statements no matter how many rows it returns. History reads the hot and archive tables, so
+ * its budgets include one list (and, for offset pages, one count) per table.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.Heath.Backend.StatementCountTests$Counter"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementCountTests {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private AppointmentRepository appointmentRepository;
+    @Autowired private DoctorSearchIndex doctorSearchIndex;
+    @Autowired private DoctorTextIndex doctorTextIndex;
+    @Autowired private DoctorGeoIndex doctorGeoIndex;
+    @Autowired private DoctorAvailabilityIndex doctorAvailabilityIndex;
+    @Autowired private AvailabilityService availabilityService;
+
+    private Long doctorId;
+
+    @BeforeAll
+    void seed() {
+        for (int d = 0; d < 12; d++) {
+            Doctor doctor = new Doctor();
+            doctor.setFullname("Doctor " + d);
+            doctor.setEmail("doctor" + d + "@statements.test");
+            doctor.setPassword("x");
+            doctor.setVerified(true);
+            doctor.setCity("Pune");
+            doctor.setState("Maharashtra");
+            doctor.setSpecialization("Dermatology");
+            doctor.setClinicOpenTime(LocalTime.of(9, 0));
+            doctor.setClinicCloseTime(LocalTime.of(17, 0));
+            doctor.setWorkingDays(Set.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"));
+            doctorRepository.save(doctor);
+            if (d == 0) doctorId = doctor.getId();
+        }
+        Doctor doctor = doctorRepository.findById(doctorId).orElseThrow();
+
+        for (int p = 0; p < 10; p++) {
+            User patient = new User();
+            patient.setUserName("patient" + p);
+            patient.setEmail("patient" + p + "@statements.test");
+            patient.setPassword("x");
+            userRepository.save(patient);
+
+            for (int i = 0; i < 2; i++) {
+                Appointment appointment = new Appointment();
+                appointment.setDoctor(doctor);
+                appointment.setPatient(patient);
+                appointment.setScheduledAt(i == 0
+                        ? LocalDateTime.now().plusDays(p + 1).withHour(10).withMinute(0).withSecond(0).withNano(0)
+                        : LocalDateTime.now().minusDays(p + 1));
+                appointment.setStatus(i == 0 ? Appointment.Status.PENDING : Appointment.Status.RESOLVED);
+                appointmentRepository.save(appointment);
+            }
+        }
+        // Rows above bypass DoctorService, so reload the search indexes from them.
+        doctorSearchIndex.rebuild();
+        doctorTextIndex.rebuild();
+        doctorGeoIndex.rebuild();
+        doctorAvailabilityIndex.rebuild();
+        // Read once per process, not per request.
+        availabilityService.lookbackMinutes();
+    }
+
+    @Test
+    void doctorListingsUseFixedStatementCount() throws Exception {
+        String doctor = bearer("doctor0@statements.test");
+        assertThat(statementsFor("/api/v1/appointments/doctor/upcoming?page=0&size=10", doctor)).isLessThanOrEqualTo(3);
+        assertThat(statementsFor("/api/v1/appointments/doctor/history?page=0&size=10", doctor)).isLessThanOrEqualTo(5);
+        assertThat(statementsFor("/api/v1/appointments/doctor/upcoming?cursor=&size=10", doctor)).isLessThanOrEqualTo(2);
+        assertThat(statementsFor("/api/v1/appointments/doctor/history?cursor=&size=10", doctor)).isLessThanOrEqualTo(3);
+        assertThat(statementsFor("/api/v1/appointments/doctor/stats", doctor)).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void patientListingsUseFixedStatementCount() throws Exception {
+        String patient = bearer("patient0@statements.test");
+        assertThat(statementsFor("/api/v1/appointments/user/upcoming?page=0&size=10", patient)).isLessThanOrEqualTo(3);
+        assertThat(statementsFor("/api/v1/appointments/user/history?page=0&size=10", patient)).isLessThanOrEqualTo(5);
+        assertThat(statementsFor("/api/v1/appointments/user/history?cursor=&size=10", patient)).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void doctorReadsUseFixedStatementCount() throws Exception {
+        String patient = bearer("patient0@statements.test");
+        assertThat(statementsFor("/api/v1/doctors/profile", bearer("doctor0@statements.test"))).isLessThanOrEqualTo(1);
+        assertThat(statementsFor("/api/v1/doctors/" + doctorId + "/slots", null)).isLessThanOrEqualTo(3);
+        assertThat(statementsFor("/api/v1/users/recommend/city?city=pune&page=0&size=10", patient)).isLessThanOrEqualTo(3);
+        assertThat(statementsFor("/api/v1/users/recommend/state?state=maharashtra&page=0&size=10", patient)).isLessThanOrEqualTo(3);
+        assertThat(statementsFor("/api/v1/users/recommend/advanced?city=pune&state=maharashtra&specialization=dermatology&page=0&size=10",
+                patient)).isLessThanOrEqualTo(3);
+        assertThat(statementsFor("/api/v1/users/search/doctors?q=dermatolgy&page=0&size=10", patient)).isLessThanOrEqualTo(3);
+        assertThat(statementsFor("/api/v1/users/recommend/nearby?lat=18.53&lon=73.85&page=0&size=10", patient)).isLessThanOrEqualTo(3);
+        assertThat(statementsFor("/api/v1/users/recommend/available-soon?city=pune&withinHours=72&page=0&size=10", patient))
+                .isLessThanOrEqualTo(3);
+    }
+
+    private int statementsFor(String url, String authHeader) throws Exception {
+        Counter.reset();
+        var request = get(url);
+        if (authHeader != null) request.header("Authorization", authHeader);
+        mockMvc.perform(request).andExpect(status().isOk());
+        return Counter.count();
+    }
+
+    private String bearer(String email) {
+        return "Bearer " + jwtUtil.generateToken(email);
+    }
+
+    /** Counts statements prepared on the calling thread, so background jobs do not skew the numbers. */
+    public static class Counter implements StatementInspector {
+        private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+        static void reset() {
+            COUNT.get()[0] = 0;
+        }
+
+        static int count() {
+            return COUNT.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.get()[0]++;
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.Heath.Backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.Heath.Backend.Models.Appointment;
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Models.User;
+import com.Heath.Backend.Models.WaitlistEntry;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.UserRepository;
+import com.Heath.Backend.Repository.WaitlistEntryRepository;
+import com.Heath.Backend.Utils.ApiResponse;
+import com.Heath.Backend.Utils.EmailUtil;
+import com.Heath.Backend.service.AppointmentService;
+import com.Heath.Backend.service.WaitlistService;
+
+/**
+ * Walks a freed slot through the waitlist: the cancellation offers it to the first patient in line,
+ * an accept whose booking fails rolls back and leaves that patient at the head of the line, and the
+ * next offer goes to them again and books. A declined hold passes to the next patient in the same
+ * transaction as the leave.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:waitlist;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class WaitlistTests {
+
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private WaitlistService waitlistService;
+    @SpyBean private WaitlistEntryRepository waitlistEntryRepository;
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @MockBean private EmailUtil emailUtil;
+
+    @Test
+    void offerAcceptRollbackAndReoffer() {
+        Doctor doctor = doctor();
+        LocalDate day = LocalDate.now().plusDays(2);
+        LocalDateTime slot = day.atTime(10, 0);
+
+        ApiResponse<Object> booked = appointmentService.createAppointment(patient("holder").getEmail(), booking(doctor, day));
+        assertThat(booked.getStatus()).isEqualTo("success");
+        Long appointmentId = ((Appointment) ((Map<?, ?>) booked.getData()).get("appointment")).getId();
+
+        User first = patient("first");
+        User second = patient("second");
+        Long firstEntry = join(first, doctor, day);
+        Long secondEntry = join(second, doctor, day);
+
+        // Cancelling the booking offers its slot to whoever joined first.
+        assertThat(appointmentService.cancelAppointment("holder@waitlist.test", appointmentId, "plans changed").getStatus())
+                .isEqualTo("success");
+        WaitlistEntry offered = waitlistEntryRepository.findById(firstEntry).orElseThrow();
+        assertThat(offered.getStatus()).isEqualTo(WaitlistEntry.Status.OFFERED);
+        assertThat(offered.getOfferAt()).isEqualTo(slot);
+        assertThat(status(secondEntry)).isEqualTo(WaitlistEntry.Status.WAITING);
+
+        // The booking behind the accept fails, so the claim rolls back with it.
+        jdbcTemplate.update("update doctor set clinic_open_time = ? where id = ?", LocalTime.of(11, 0), doctor.getId());
+        assertThat(waitlistService.accept(first.getEmail(), firstEntry).getStatus()).isEqualTo("error");
+        assertThat(status(firstEntry)).isEqualTo(WaitlistEntry.Status.WAITING);
+        assertThat(pendingFor(first)).isZero();
+
+        // Back in line at its original place, ahead of the second patient.
+        jdbcTemplate.update("update doctor set clinic_open_time = ? where id = ?", LocalTime.of(9, 0), doctor.getId());
+        assertThat(waitlistService.offerFreedSlot(doctor.getId(), slot, 30)).isTrue();
+        assertThat(status(firstEntry)).isEqualTo(WaitlistEntry.Status.OFFERED);
+        assertThat(status(secondEntry)).isEqualTo(WaitlistEntry.Status.WAITING);
+
+        assertThat(waitlistService.accept(first.getEmail(), firstEntry).getStatus()).isEqualTo("success");
+        WaitlistEntry accepted = waitlistEntryRepository.findById(firstEntry).orElseThrow();
+        assertThat(accepted.getStatus()).isEqualTo(WaitlistEntry.Status.BOOKED);
+        assertThat(accepted.getAppointmentId()).isNotNull();
+        assertThat(pendingFor(first)).isEqualTo(1);
+    }
+
+    @Test
+    void declinedHoldGoesToTheNextPatient() {
+        Doctor doctor = doctor();
+        LocalDate day = LocalDate.now().plusDays(4);
+        LocalDateTime slot = day.atTime(10, 0);
+
+        ApiResponse<Object> booked = appointmentService.createAppointment(patient("keeper").getEmail(), booking(doctor, day));
+        Long appointmentId = ((Appointment) ((Map<?, ?>) booked.getData()).get("appointment")).getId();
+        User first = patient("decliner");
+        User second = patient("next");
+        Long firstEntry = join(first, doctor, day);
+        Long secondEntry = join(second, doctor, day);
+
+        assertThat(appointmentService.cancelAppointment("keeper@waitlist.test", appointmentId, "plans changed").getStatus())
+                .isEqualTo("success");
+        assertThat(status(firstEntry)).isEqualTo(WaitlistEntry.Status.OFFERED);
+
+        assertThat(waitlistService.leave(first.getEmail(), firstEntry).getStatus()).isEqualTo("success");
+        assertThat(status(firstEntry)).isEqualTo(WaitlistEntry.Status.CANCELLED);
+        WaitlistEntry offered = waitlistEntryRepository.findById(secondEntry).orElseThrow();
+        assertThat(offered.getStatus()).isEqualTo(WaitlistEntry.Status.OFFERED);
+        assertThat(offered.getOfferAt()).isEqualTo(slot);
+
+        // Leaving again finds nothing to leave.
+        assertThat(waitlistService.leave(first.getEmail(), firstEntry).getStatus()).isEqualTo("error");
+        assertThat(waitlistService.accept(second.getEmail(), secondEntry).getStatus()).isEqualTo("success");
+        assertThat(pendingFor(second)).isEqualTo(1);
+    }
+
+    @Test
+    void failedReofferKeepsTheDeclinedHold() {
+        Doctor doctor = doctor();
+        LocalDate day = LocalDate.now().plusDays(5);
+
+        ApiResponse<Object> booked = appointmentService.createAppointment(patient("owner").getEmail(), booking(doctor, day));
+        Long appointmentId = ((Appointment) ((Map<?, ?>) booked.getData()).get("appointment")).getId();
+        User first = patient("holdkeeper");
+        Long firstEntry = join(first, doctor, day);
+        Long secondEntry = join(patient("behind"), doctor, day);
+        assertThat(appointmentService.cancelAppointment("owner@waitlist.test", appointmentId, "plans changed").getStatus())
+                .isEqualTo("success");
+
+        // The leave and the re-offer share a transaction, so a failed re-offer undoes the leave.
+        doThrow(new IllegalStateException("offer failed")).when(waitlistEntryRepository).offer(any(), any(), any(), any(), any());
+        assertThatThrownBy(() -> waitlistService.leave(first.getEmail(), firstEntry)).hasMessageContaining("offer failed");
+        assertThat(status(firstEntry)).isEqualTo(WaitlistEntry.Status.OFFERED);
+        assertThat(status(secondEntry)).isEqualTo(WaitlistEntry.Status.WAITING);
+    }
+
+    @Test
+    void offerSkipsEntriesTheSlotDoesNotFit() {
+        Doctor doctor = doctor();
+        LocalDate day = LocalDate.now().plusDays(3);
+
+        User late = patient("late");
+        Map<String, String> payload = new HashMap<>();
+        payload.put("doctorId", String.valueOf(doctor.getId()));
+        payload.put("date", day.toString());
+        payload.put("earliest", "14:00");
+        Long lateEntry = entryId(waitlistService.join(late.getEmail(), payload));
+        Long anyEntry = join(patient("any"), doctor, day);
+
+        assertThat(waitlistService.offerFreedSlot(doctor.getId(), day.atTime(10, 0), 30)).isTrue();
+        assertThat(status(lateEntry)).isEqualTo(WaitlistEntry.Status.WAITING);
+        assertThat(status(anyEntry)).isEqualTo(WaitlistEntry.Status.OFFERED);
+    }
+
+    private Doctor doctor() {
+        Doctor doctor = new Doctor();
+        String name = "doctor" + System.nanoTime();
+        doctor.setFullname(name);
+        doctor.setEmail(name + "@waitlist.test");
+        doctor.setPassword("x");
+        doctor.setVerified(true);
+        doctor.setCity("Pune");
+        doctor.setState("Maharashtra");
+        doctor.setSpecialization("Dermatology");
+        doctor.setClinicOpenTime(LocalTime.of(9, 0));
+        doctor.setClinicCloseTime(LocalTime.of(17, 0));
+        doctor.setWorkingDays(Set.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY"));
+        return doctorRepository.save(doctor);
+    }
+
+    private User patient(String name) {
+        User patient = new User();
+        patient.setUserName(name);
+        patient.setEmail(name + "@waitlist.test");
+        patient.setPassword("x");
+        return userRepository.save(patient);
+    }
+
+    private Map<String, String> booking(Doctor doctor, LocalDate day) {
+        Map<String, String> payload = new HashMap<>();
+        payload.put("doctorId", String.valueOf(doctor.getId()));
+        payload.put("date", day.toString());
+        payload.put("time", "10:00");
+        return payload;
+    }
+
+    private Long join(User patient, Doctor doctor, LocalDate day) {
+        Map<String, String> payload = new HashMap<>();
+        payload.put("doctorId", String.valueOf(doctor.getId()));
+        payload.put("date", day.toString());
+        return entryId(waitlistService.join(patient.getEmail(), payload));
+    }
+
+    private static Long entryId(ApiResponse<Object> joined) {
+        assertThat(joined.getStatus()).isEqualTo("success");
+        return ((WaitlistEntry) ((Map<?, ?>) joined.getData()).get("entry")).getId();
+    }
+
+    private WaitlistEntry.Status status(Long entryId) {
+        return waitlistEntryRepository.findById(entryId).orElseThrow().getStatus();
+    }
+
+    private long pendingFor(User patient) {
+        return jdbcTemplate.queryForObject("select count(*) from appointments where patient_id = ? and status = 'PENDING'",
+                Long.class, patient.getId());
+    }
+}
@@ -0,0 +1,88 @@
+package com.Heath.Backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.BookedInterval;
+import com.Heath.Backend.Repository.DoctorCloseDateRepository;
+
+class AvailabilityServiceTests {
+
+    private static final LocalDate FROM = LocalDate.now().plusDays(2);
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final AvailabilityService availabilityService =
+            new AvailabilityService(appointmentRepository, mock(DoctorCloseDateRepository.class));
+
+    @BeforeEach
+    void bookOvernightRows() {
+        // Legacy rows longer than any valid booking: one from the evening before the window that
+        // runs into its first morning, and one inside the window that runs into the next day.
+        List<BookedInterval> rows = List.of(
+                new BookedInterval(1L, FROM.minusDays(1).atTime(23, 0), 660),
+                new BookedInterval(2L, FROM.plusDays(1).atTime(20, 0), 840));
+        when(appointmentRepository.findLongestPendingDuration()).thenReturn(840);
+        when(appointmentRepository.findPendingIntervalsBetween(eq(1L), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(1);
+            LocalDateTime to = invocation.getArgument(2);
+            return rows.stream().filter(b -> !b.scheduledAt().isBefore(from) && b.scheduledAt().isBefore(to)).toList();
+        });
+    }
+
+    @Test
+    void nextAvailableDateSkipsDaysBlockedByRowsStartingTheDayBefore() {
+        Doctor doctor = doctor();
+
+        assertThat(availabilityService.findNextAvailableDate(doctor, LocalTime.of(9, 0), 30, FROM, 7))
+                .isEqualTo(FROM.plusDays(1));
+        assertThat(availabilityService.findNextAvailableDate(doctor, LocalTime.of(9, 30), 30, FROM.plusDays(2), 7))
+                .isEqualTo(FROM.plusDays(3));
+        assertThat(availabilityService.findNextAvailableDate(doctor, LocalTime.of(10, 0), 30, FROM, 7)).isEqualTo(FROM);
+    }
+
+    @Test
+    void rowsInsideTheWindowBlockTheDayAfterTheyStart() {
+        // The window opens the evening row1 starts, on a day off, so row1 is loaded but the first
+        // candidate is the morning it runs into.
+        Doctor doctor = doctor();
+        Set<String> workingDays = new HashSet<>(doctor.getWorkingDays());
+        workingDays.remove(FROM.minusDays(1).getDayOfWeek().toString());
+        doctor.setWorkingDays(workingDays);
+
+        assertThat(availabilityService.findNextAvailableDate(doctor, LocalTime.of(9, 0), 30, FROM.minusDays(1), 7))
+                .isEqualTo(FROM.plusDays(1));
+    }
+
+    @Test
+    void openSlotsLeaveOutTheMorningTakenByTheEveningBefore() {
+        Map<LocalDate, List<LocalTime>> open = availabilityService.findOpenSlots(doctor(), FROM, FROM, 30);
+
+        assertThat(open.get(FROM)).doesNotContain(LocalTime.of(9, 0), LocalTime.of(9, 30))
+                .startsWith(LocalTime.of(10, 0));
+    }
+
+    private static Doctor doctor() {
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setClinicOpenTime(LocalTime.of(9, 0));
+        doctor.setClinicCloseTime(LocalTime.of(17, 0));
+        doctor.setWorkingDays(Set.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY"));
+        return doctor;
+    }
+}
@@ -0,0 +1,103 @@
+package com.Heath.Backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.Heath.Backend.Repository.DoctorGeoPoint;
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Utils.GeoPoint;
+
+/**
+ * Checks the grid walk against a brute-force scan of every doctor, with doctors and query points
+ * spread over the globe and bunched at the poles and around the antimeridian.
+ */
+class DoctorGeoIndexTests {
+
+    private static final String[] SPECIALIZATIONS = {"Cardiology", "Dermatology", "Neurology"};
+
+    private final Random random = new Random(20261018L);
+    private final List<DoctorGeoPoint> doctors = new ArrayList<>();
+    private DoctorGeoIndex index;
+
+    @BeforeEach
+    void buildIndex() {
+        long id = 1;
+        for (int i = 0; i < 3000; i++) doctors.add(doctor(id++, uniform()));
+        for (int i = 0; i < 1000; i++) doctors.add(doctor(id++, nearPole(89.0)));
+        for (int i = 0; i < 1000; i++) doctors.add(doctor(id++, nearPole(-89.0)));
+        for (int i = 0; i < 1000; i++) doctors.add(doctor(id++, nearAntimeridian()));
+        doctors.add(doctor(id++, new GeoPoint(90, 0)));
+        doctors.add(doctor(id, new GeoPoint(-90, 180)));
+
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findVerifiedGeoPoints()).thenReturn(doctors);
+        index = new DoctorGeoIndex(doctorRepository, mock(CityGeocoder.class));
+        index.rebuild();
+    }
+
+    @Test
+    void nearestMatchesBruteForce() {
+        List<GeoPoint> origins = new ArrayList<>(List.of(
+                new GeoPoint(90, 0), new GeoPoint(-90, 0), new GeoPoint(89.95, 179.99),
+                new GeoPoint(0, 180), new GeoPoint(0, -180), new GeoPoint(12.97, 77.59)));
+        for (int i = 0; i < 20; i++) origins.add(uniform());
+        for (int i = 0; i < 20; i++) origins.add(nearPole(random.nextBoolean() ? 88.5 : -88.5));
+        for (int i = 0; i < 20; i++) origins.add(nearAntimeridian());
+
+        double[] radii = {5, 50, 400, 2500};
+        int[] ks = {1, 5, 40, Integer.MAX_VALUE};
+        for (GeoPoint origin : origins) {
+            for (double maxKm : radii) {
+                for (int k : ks) {
+                    String specialization = random.nextBoolean() ? null : SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)];
+                    assertThat(index.nearest(origin, maxKm, specialization, k))
+                            .as("%s within %s km, k=%s, %s", origin, maxKm, k, specialization)
+                            .isEqualTo(bruteForce(origin, maxKm, specialization, k));
+                }
+            }
+        }
+    }
+
+    private List<DoctorGeoIndex.Nearby> bruteForce(GeoPoint origin, double maxKm, String specialization, int k) {
+        List<DoctorGeoIndex.Nearby> all = new ArrayList<>();
+        for (DoctorGeoPoint doctor : doctors) {
+            if (specialization != null && !specialization.equals(doctor.specialization())) continue;
+            double km = GeoPoint.distanceKm(origin.latitude(), origin.longitude(), doctor.latitude(), doctor.longitude());
+            if (km <= maxKm) all.add(new DoctorGeoIndex.Nearby(doctor.id(), km));
+        }
+        all.sort(Comparator.comparingDouble(DoctorGeoIndex.Nearby::distanceKm)
+                .thenComparingLong(DoctorGeoIndex.Nearby::doctorId));
+        return all.subList(0, Math.min(k, all.size()));
+    }
+
+    private DoctorGeoPoint doctor(long id, GeoPoint point) {
+        return new DoctorGeoPoint(id, point.latitude(), point.longitude(),
+                SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)]);
+    }
+
+    private GeoPoint uniform() {
+        return new GeoPoint(Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)), random.nextDouble() * 360 - 180);
+    }
+
+    // Within a degree poleward of the given latitude, at any longitude.
+    private GeoPoint nearPole(double from) {
+        double latitude = from + Math.signum(from) * random.nextDouble();
+        return new GeoPoint(Math.max(-90, Math.min(90, latitude)), random.nextDouble() * 360 - 180);
+    }
+
+    // Within a degree of the antimeridian, on either side of it.
+    private GeoPoint nearAntimeridian() {
+        double offset = random.nextDouble();
+        double longitude = random.nextBoolean() ? 180 - offset : -180 + offset;
+        return new GeoPoint(random.nextDouble() * 20 - 10, longitude);
+    }
+}
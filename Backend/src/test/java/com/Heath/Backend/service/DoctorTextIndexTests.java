@@ -0,0 +1,90 @@
+package com.Heath.Backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.Heath.Backend.Repository.DoctorRepository;
+import com.Heath.Backend.Repository.DoctorSearchText;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DoctorTextIndexTests {
+
+    @Test
+    void editDistanceCountsSwapsAsOneEdit() {
+        assertThat(DoctorTextIndex.editDistance("skin", "skin", 1)).isZero();
+        assertThat(DoctorTextIndex.editDistance("skni", "skin", 1)).isEqualTo(1);
+        assertThat(DoctorTextIndex.editDistance("cardiolgoy", "cardiology", 2)).isEqualTo(1);
+        assertThat(DoctorTextIndex.editDistance("cardio", "cardia", 1)).isEqualTo(1);
+        assertThat(DoctorTextIndex.editDistance("dentst", "dentist", 1)).isEqualTo(1);
+        assertThat(DoctorTextIndex.editDistance("pediatric", "paediatrics", 2)).isEqualTo(2);
+    }
+
+    @Test
+    void editDistanceStopsAtMaxPlusOne() {
+        assertThat(DoctorTextIndex.editDistance("ab", "abcd", 1)).isEqualTo(2);
+        assertThat(DoctorTextIndex.editDistance("skin", "bone", 1)).isEqualTo(2);
+        // The last row's minimum is within reach, but the full alignment is not.
+        assertThat(DoctorTextIndex.editDistance("xxab", "abyy", 2)).isEqualTo(3);
+        assertThat(DoctorTextIndex.editDistance("neurology", "urology", 1)).isEqualTo(2);
+    }
+
+    @Test
+    void tokenizeFoldsCaseAndAccentsAndDropsStopWords() {
+        assertThat(DoctorTextIndex.tokenize("The Heart & Skin Clinic of Pune"))
+                .containsExactly("heart", "skin", "clinic", "pune");
+        assertThat(DoctorTextIndex.tokenize("  Clínica-Médica, 24x7 ")).containsExactly("clinica", "medica", "24x7");
+        assertThat(DoctorTextIndex.tokenize("the and of")).isEmpty();
+        assertThat(DoctorTextIndex.tokenize("   ")).isEmpty();
+        assertThat(DoctorTextIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void doctorsMatchingMoreWordsRankFirst() {
+        DoctorTextIndex index = index(
+                new DoctorSearchText(1L, "Asha Rao", "Rao Skin Clinic", "Dermatology", "Skin and hair care", "Pune"),
+                new DoctorSearchText(2L, "Vikram Shah", "Heart Care", "Cardiology", "Heart rhythm clinic", "Mumbai"),
+                new DoctorSearchText(3L, "Meera Iyer", "Little Steps", "Pediatrics", "Pediatric skin care", "Pune"));
+
+        // "pediatr" completes to pediatric(s); "skni" is one swap away from skin.
+        SearchHits hits = index.search("pediatr skni", null, 0, 10);
+        assertThat(hits.total()).isEqualTo(2);
+        assertThat(hits.ids()).containsExactly(3L, 1L);
+
+        assertThat(index.search("care", "Mumbai", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("the of", null, 0, 10)).isSameAs(SearchHits.NONE);
+    }
+
+    @Test
+    void exactTermsOutrankCompletionsAndTiesGoToTheLowerId() {
+        DoctorTextIndex index = index(
+                new DoctorSearchText(7L, "Neha Joshi", null, "Cardiology", null, "Pune"),
+                new DoctorSearchText(5L, "Ravi Kumar", null, "Cardio", null, "Pune"),
+                new DoctorSearchText(6L, "Anil Mehta", null, "Cardiology", null, "Pune"));
+
+        assertThat(index.search("cardio", null, 0, 10).ids()).containsExactly(5L, 6L, 7L);
+        assertThat(index.search("cardio", null, 1, 2).ids()).containsExactly(7L);
+    }
+
+    @Test
+    void nameMatchesOutrankAboutMatches() {
+        DoctorTextIndex index = index(
+                new DoctorSearchText(1L, "Priya Menon", null, "Neurology", "Trained under doctor Kapoor", "Pune"),
+                new DoctorSearchText(2L, "Rohan Kapoor", null, "Neurology", "Trained under doctor Menon", "Pune"));
+
+        assertThat(index.search("kapoor", null, 0, 10).ids()).containsExactly(2L, 1L);
+    }
+
+    private static DoctorTextIndex index(DoctorSearchText... doctors) {
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findVerifiedSearchText()).thenReturn(List.of(doctors));
+        DoctorTextIndex index = new DoctorTextIndex(doctorRepository, new SimpleMeterRegistry());
+        index.rebuild();
+        return index;
+    }
+}
@@ -0,0 +1,163 @@
+package com.Heath.Backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.Heath.Backend.Models.Appointment.Status;
+import com.Heath.Backend.Models.Doctor;
+import com.Heath.Backend.Repository.AppointmentRepository;
+import com.Heath.Backend.Repository.BookedInterval;
+
+class SlotOccupancyCacheTests {
+
+    private static final LocalTime OPEN = LocalTime.of(9, 0);
+    private static final LocalTime CLOSE = LocalTime.of(17, 0);
+    private static final LocalDate DAY = LocalDate.now().plusDays(3);
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final AvailabilityService availabilityService = mock(AvailabilityService.class);
+    private SlotOccupancyCache cache;
+
+    @BeforeEach
+    void createCache() {
+        when(availabilityService.lookbackMinutes()).thenReturn(240);
+        cache = new SlotOccupancyCache(appointmentRepository, availabilityService, 100);
+    }
+
+    @Test
+    void disjointDayAnswersOverlapsAndRemovesInPlace() {
+        SlotOccupancyCache.DayOccupancy day = new SlotOccupancyCache.DayOccupancy(OPEN, CLOSE, 0);
+        day.add(600, 630);
+        day.add(630, 660);
+
+        assertThat(day.overlaps(599, 601)).isTrue();
+        assertThat(day.overlaps(645, 700)).isTrue();
+        assertThat(day.overlaps(570, 600)).isFalse();
+        assertThat(day.overlaps(660, 690)).isFalse();
+
+        assertThat(day.remove(600, 630)).isTrue();
+        assertThat(day.overlaps(600, 630)).isFalse();
+        assertThat(day.overlaps(600, 631)).isTrue();
+        // Only a stored interval can be removed in place.
+        assertThat(day.remove(630, 650)).isFalse();
+        assertThat(day.remove(700, 730)).isFalse();
+    }
+
+    @Test
+    void overlappingRowsSwitchTheDayToItsBitset() {
+        SlotOccupancyCache.DayOccupancy day = new SlotOccupancyCache.DayOccupancy(OPEN, CLOSE, 0);
+        day.add(600, 660);
+        day.add(630, 690);
+
+        assertThat(day.overlaps(680, 700)).isTrue();
+        assertThat(day.overlaps(690, 700)).isFalse();
+        assertThat(day.overlaps(570, 601)).isTrue();
+        // A legacy day cannot be maintained in place and must be reloaded on release.
+        assertThat(day.remove(600, 660)).isFalse();
+    }
+
+    @Test
+    void intervalsAreClippedAtOpenAndClose() {
+        SlotOccupancyCache.DayOccupancy day = new SlotOccupancyCache.DayOccupancy(OPEN, CLOSE, 0);
+        // The evening before's row, clipped to midnight by the loader, and one running past close.
+        day.add(0, 570);
+        day.add(1000, 24 * 60);
+        day.add(700, 760);
+        day.add(730, 800);
+
+        assertThat(day.overlaps(540, 545)).isTrue();
+        assertThat(day.overlaps(570, 700)).isFalse();
+        assertThat(day.overlaps(800, 1000)).isFalse();
+        assertThat(day.overlaps(1015, 1020)).isTrue();
+        assertThat(day.covers(OPEN, CLOSE)).isTrue();
+        assertThat(day.covers(LocalTime.of(8, 0), CLOSE)).isFalse();
+    }
+
+    @Test
+    void loadedDayIsKeptWhenNothingChangedWhileItLoaded() {
+        when(appointmentRepository.findPendingIntervalsBetween(eq(1L), any(), any())).thenReturn(List.of());
+        Doctor doctor = doctor(0L);
+
+        assertThat(cache.overlaps(doctor, DAY.atTime(10, 0), 30)).isFalse();
+        assertThat(cache.overlaps(doctor, DAY.atTime(11, 0), 30)).isFalse();
+        verify(appointmentRepository, times(1)).findPendingIntervalsBetween(eq(1L), any(), any());
+    }
+
+    @Test
+    void releaseCommittedWhileTheDayLoadsDropsTheLoadedDay() {
+        boolean[] raced = {false};
+        when(appointmentRepository.findPendingIntervalsBetween(eq(1L), any(), any())).thenAnswer(invocation -> {
+            if (!raced[0]) {
+                raced[0] = true;
+                cache.onAppointmentChanged(new AppointmentChangedEvent(
+                        7L, 1L, 2L, DAY.atTime(12, 0), 30, Status.PENDING, Status.CANCELLED));
+                // The query's snapshot predates the release, so it still returns the row.
+                return List.of(new BookedInterval(7L, DAY.atTime(12, 0), 30));
+            }
+            return List.of();
+        });
+        Doctor doctor = doctor(0L);
+
+        assertThat(cache.overlaps(doctor, DAY.atTime(10, 0), 30)).isFalse();
+        // The stale load was not stored, so the next check reloads and reads the slot as free,
+        // instead of reading it as taken and confirming that against the database.
+        assertThat(cache.overlaps(doctor, DAY.atTime(12, 0), 30)).isFalse();
+        verify(appointmentRepository, times(2)).findPendingIntervalsBetween(eq(1L), any(), any());
+        verify(availabilityService, never()).hasOverlappingPending(any(), any(), anyInt());
+    }
+
+    @Test
+    void bookingCommittedWhileTheDayLoadsDropsTheLoadedDay() {
+        // A booking on this instance, recorded with the version it moved the doctor to.
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> commit;
+        try {
+            cache.recordBooking(doctor(1L), DAY.atTime(14, 0), 30);
+            commit = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        boolean[] raced = {false};
+        when(appointmentRepository.findPendingIntervalsBetween(eq(1L), any(), any())).thenAnswer(invocation -> {
+            if (!raced[0]) {
+                raced[0] = true;
+                commit.forEach(TransactionSynchronization::afterCommit);
+                // The query's snapshot predates the booking, so it misses the row.
+                return List.of();
+            }
+            return List.of(new BookedInterval(8L, DAY.atTime(14, 0), 30));
+        });
+        when(availabilityService.hasOverlappingPending(eq(1L), eq(DAY.atTime(14, 0)), anyInt())).thenReturn(true);
+
+        assertThat(cache.overlaps(doctor(0L), DAY.atTime(10, 0), 30)).isFalse();
+        // Had the stale load been stored, 14:00 would read free and be trusted.
+        assertThat(cache.overlaps(doctor(1L), DAY.atTime(14, 0), 30)).isTrue();
+        verify(appointmentRepository, times(2)).findPendingIntervalsBetween(eq(1L), any(), any());
+    }
+
+    private static Doctor doctor(long bookingVersion) {
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setClinicOpenTime(OPEN);
+        doctor.setClinicCloseTime(CLOSE);
+        doctor.setBookingVersion(bookingVersion);
+        return doctor;
+    }
+}